@@ -0,0 +1,203 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved.
+ * WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+package com.values.utils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+
+/**
+ * @Description 业务时钟，DateUtils中所有取当前时间、当前日期的方法都通过它计算。
+ * 当天的日期、0点的毫秒数和时差缓存在一个不可变的快照中，快照的有效期到下一个0点（或时差切换）为止，
+ * 到期后第一次读取时按预先算好的时刻刷新，平时只读一次时钟再比较、读取字段，不查时区规则也不创建对象。
+ * <p>
+ * 测试时可以用fixed或of(Clock)创建时钟，再通过DateUtils.setBusinessClock替换系统时钟
+ */
+public class BusinessClock {
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final long MILLIS_PER_HOUR = 3600000L;
+
+    /**
+     * 系统时钟每秒最多检查一次默认时区是否被修改
+     */
+    private static final long ZONE_CHECK_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 为null时使用System.currentTimeMillis()和默认时区
+     */
+    private final Clock clock;
+    private volatile Today today;
+    private volatile long zoneCheckUntil;
+
+    private BusinessClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return 系统时钟，使用默认时区，默认时区被修改后最多1秒生效
+     */
+    public static BusinessClock system() {
+        return new BusinessClock(null);
+    }
+
+    /**
+     * @param clock 时钟，日期按clock的时区计算，可以传入自定义的Clock在测试中推进时间
+     */
+    public static BusinessClock of(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock不能为空");
+        }
+        return new BusinessClock(clock);
+    }
+
+    /**
+     * @param date 固定的当前时间，时区为默认时区
+     * @return 时间不会变化的时钟，用于测试
+     */
+    public static BusinessClock fixed(Date date) {
+        return of(Clock.fixed(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault()));
+    }
+
+    /**
+     * @param dateTime 固定的本地时间，时区为默认时区
+     * @return 时间不会变化的时钟，用于测试
+     */
+    public static BusinessClock fixed(LocalDateTime dateTime) {
+        ZoneId zone = ZoneId.systemDefault();
+        return of(Clock.fixed(dateTime.atZone(zone).toInstant(), zone));
+    }
+
+    /**
+     * @return 当前时间的毫秒数
+     */
+    public long millis() {
+        return clock == null ? System.currentTimeMillis() : clock.millis();
+    }
+
+    public ZoneId getZone() {
+        return today(millis()).zone;
+    }
+
+    /**
+     * @return 今天距1970-01-01的天数
+     */
+    public long epochDay() {
+        return today(millis()).epochDay;
+    }
+
+    /**
+     * @return 今天
+     */
+    public LocalDate today() {
+        return today(millis()).date;
+    }
+
+    /**
+     * @return 今天0点的毫秒数，同LocalDate.now().atStartOfDay(ZoneId.systemDefault())
+     */
+    public long startOfDayMillis() {
+        return today(millis()).startMillis;
+    }
+
+    /**
+     * @return 当前的小时（0-23），同LocalTime.now().getHour()
+     */
+    public int hour() {
+        long now = millis();
+        return (int) (Math.floorMod(now + today(now).offsetMillis, MILLIS_PER_DAY) / MILLIS_PER_HOUR);
+    }
+
+    /**
+     * @return 当前的本地时间按UTC计算的毫秒数，可以与其他本地时间直接比较，同LocalDateTime.now()
+     */
+    public long localMillis() {
+        long now = millis();
+        return now + today(now).offsetMillis;
+    }
+
+    /**
+     * @param epochMillis 任意时间的毫秒数
+     * @return 该时间在本时钟的时区的本地日期，可以与epochDay()直接比较
+     */
+    public long toEpochDay(long epochMillis) {
+        return Math.floorDiv(toLocalMillis(epochMillis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * @param epochMillis 任意时间的毫秒数
+     * @return 该时间在本时钟的时区的本地时间按UTC计算的毫秒数，可以与localMillis()直接比较
+     */
+    public long toLocalMillis(long epochMillis) {
+        Today current = today(millis());
+        if (epochMillis >= current.validFrom && epochMillis < current.validUntil) {
+            return epochMillis + current.offsetMillis;
+        }
+        return epochMillis + current.offsets.offset(epochMillis);
+    }
+
+    private Today today(long now) {
+        Today current = today;
+        if (current == null || now < current.validFrom || now >= current.validUntil) {
+            current = new Today(now, clock == null ? ZoneId.systemDefault() : clock.getZone(), current);
+            today = current;
+        } else if (clock == null && now >= zoneCheckUntil) {
+            ZoneId zone = ZoneId.systemDefault();
+            if (!zone.equals(current.zone)) {
+                current = new Today(now, zone, current);
+                today = current;
+            }
+            zoneCheckUntil = now + ZONE_CHECK_INTERVAL_MILLIS;
+        }
+        return current;
+    }
+
+    /**
+     * 当天的快照，在[validFrom, validUntil)内日期和时差都不变
+     */
+    private static final class Today {
+        private final ZoneId zone;
+        /**
+         * 时区的时差表，换算其他时间用，时区不变时沿用上一个快照的
+         */
+        private final EpochDays.Zone offsets;
+        private final LocalDate date;
+        private final long epochDay;
+        private final long startMillis;
+        private final int offsetMillis;
+        private final long validFrom;
+        private final long validUntil;
+
+        Today(long now, ZoneId zone, Today last) {
+            Instant instant = Instant.ofEpochMilli(now);
+            ZoneRules rules = zone.getRules();
+            ZoneOffset offset = rules.getOffset(instant);
+            this.zone = zone;
+            this.offsets = last != null && last.zone.equals(zone) ? last.offsets : EpochDays.zone(zone);
+            this.date = instant.atZone(zone).toLocalDate();
+            this.epochDay = date.toEpochDay();
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.offsetMillis = offset.getTotalSeconds() * 1000;
+            long from = startMillis;
+            long until = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            // 夏令时切换的那天，切换前后的时差不同
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusMillis(1));
+            if (previous != null) {
+                from = Math.max(from, previous.toEpochSecond() * 1000);
+            }
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            if (next != null) {
+                until = Math.min(until, next.toEpochSecond() * 1000);
+            }
+            this.validFrom = from;
+            this.validUntil = until;
+        }
+    }
+}
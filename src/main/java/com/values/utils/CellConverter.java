@@ -0,0 +1,19 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+/**
+ * @Description 导入Excel时把单元格内容转换为字段类型的值，通过CellConverters.register注册自定义类型
+ */
+@FunctionalInterface
+public interface CellConverter<T> {
+
+    /**
+     * @param content 单元格内容，已去掉首尾空格，不为null
+     * @return 字段的值，返回null时基本类型的字段保持默认值
+     * @throws Exception 内容不符合格式，导入时作为该单元格的错误
+     */
+    T convert(String content) throws Exception;
+}
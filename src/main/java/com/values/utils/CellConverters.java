@@ -0,0 +1,274 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description 导入Excel时的类型转换器注册表。每列按字段类型只查找一次转换器，不再对每个单元格逐个比较类型；
+ * 没有注册的类型：枚举按名称转换，其他类型直接赋值单元格内容。
+ * 字段通过MethodHandle按(Object, Object)赋值，基本类型的值总要装箱，数字转换器只避免装箱以外的临时对象
+ */
+public final class CellConverters {
+    /**
+     * 严格模式：2020-02-30、24:00等不存在的日期时间报错，不会被调整为月末或次日
+     */
+    private static final DateTimeFormatter SLASH_DATE = DateTimeFormatter.ofPattern("uuuu/MM/dd")
+            .withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss")
+            .withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter DATE_MINUTE = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    /**
+     * 2^53，不超过它的整数都能用double准确表示
+     */
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
+    /**
+     * 10的0到22次方都能用double准确表示
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static final Map<Class<?>, CellConverter<?>> CONVERTERS = new ConcurrentHashMap<>();
+
+    static {
+        register(String.class, content -> content);
+        register(Integer.TYPE, Integer::valueOf);
+        register(Integer.class, Integer::valueOf);
+        register(Long.TYPE, Long::valueOf);
+        register(Long.class, Long::valueOf);
+        register(Float.TYPE, Float::valueOf);
+        register(Float.class, Float::valueOf);
+        register(Short.TYPE, Short::valueOf);
+        register(Short.class, Short::valueOf);
+        register(Double.TYPE, CellConverters::toDouble);
+        register(Double.class, CellConverters::toDouble);
+        register(Byte.TYPE, Byte::valueOf);
+        register(Byte.class, Byte::valueOf);
+        register(Boolean.TYPE, CellConverters::toBoolean);
+        register(Boolean.class, CellConverters::toBoolean);
+        register(Character.TYPE, CellConverters::toCharacter);
+        register(Character.class, CellConverters::toCharacter);
+        register(BigDecimal.class, content -> content.isEmpty() ? null : new BigDecimal(content));
+        register(BigInteger.class, content -> content.isEmpty() ? null : new BigInteger(content));
+        register(Date.class, CellConverters::toDate);
+        register(LocalDate.class, CellConverters::toLocalDate);
+        register(LocalDateTime.class, CellConverters::toLocalDateTime);
+    }
+
+    private CellConverters() {
+    }
+
+    /**
+     * @param type      字段类型，基本类型和包装类型需要分别注册
+     * @param converter 转换器，会替换该类型已有的转换器，只对之后开始的导入生效
+     * @MethodName : register
+     * @Description : 注册自定义类型的转换器
+     */
+    public static <T> void register(Class<T> type, CellConverter<? extends T> converter) {
+        CONVERTERS.put(type, converter);
+    }
+
+    /**
+     * @param type 字段类型
+     * @return 该类型的转换器
+     * @MethodName : get
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static CellConverter<?> get(Class<?> type) {
+        CellConverter<?> converter = CONVERTERS.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        if (type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            return content -> content.isEmpty() ? null : Enum.valueOf(enumType, content);
+        }
+        return content -> content;
+    }
+
+    /**
+     * @param clazz     对象的类
+     * @param fieldName 简单属性名
+     * @return 字段的赋值器和转换器，导入时每列创建一次
+     */
+    static Binding bind(Class<?> clazz, String fieldName) throws Exception {
+        FieldAccessors.Setter setter = FieldAccessors.setter(clazz, fieldName);
+        return new Binding(setter, get(setter.getType()));
+    }
+
+    private static Boolean toBoolean(String content) {
+        switch (content) {
+            case "":
+                return null;
+            case "1":
+            case "是":
+                return Boolean.TRUE;
+            case "0":
+            case "否":
+                return Boolean.FALSE;
+            default:
+                if ("true".equalsIgnoreCase(content)) {
+                    return Boolean.TRUE;
+                }
+                if ("false".equalsIgnoreCase(content)) {
+                    return Boolean.FALSE;
+                }
+                throw new IllegalArgumentException("不是有效的布尔值");
+        }
+    }
+
+    /**
+     * 最多15位有效数字的普通小数（如-123.45）直接按整数除以10的幂计算，两个数都能准确表示，
+     * 一次除法的结果就是正确舍入的值，同Double.valueOf；其余格式（指数、过长、十六进制等）仍用Double.valueOf
+     */
+    private static Double toDouble(String content) {
+        double value = parseSimpleDecimal(content);
+        return Double.isNaN(value) ? Double.valueOf(content) : Double.valueOf(value);
+    }
+
+    /**
+     * @return 不是可以直接计算的普通小数时返回NaN
+     */
+    private static double parseSimpleDecimal(String content) {
+        int length = content.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (content.charAt(0) == '-' || content.charAt(0) == '+')) {
+            negative = content.charAt(0) == '-';
+            i = 1;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < length; i++) {
+            char c = content.charAt(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > 15) {
+                return Double.NaN;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0 || mantissa > MAX_EXACT_LONG) {
+            return Double.NaN;
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private static Character toCharacter(String content) {
+        return content.isEmpty() ? null : content.charAt(0);
+    }
+
+    /**
+     * 标准的yyyy-MM-dd由DateUtils逐字符解析，宽松的日期（如2016-1-5）仍按SimpleDateFormat解析，格式不符时不抛异常
+     */
+    private static Date toDate(String content) {
+        return ExcelUtils.parseDate(content);
+    }
+
+    private static LocalDate toLocalDate(String content) {
+        if (content.isEmpty()) {
+            return null;
+        }
+        LocalDate date = parseIsoDate(content);
+        if (date != null && content.length() == 10) {
+            return date;
+        }
+        if (content.length() > 10 && content.charAt(10) == ' ') {
+            return toLocalDateTime(content).toLocalDate();
+        }
+        return LocalDate.parse(content, SLASH_DATE);
+    }
+
+    private static LocalDateTime toLocalDateTime(String content) {
+        if (content.isEmpty()) {
+            return null;
+        }
+        switch (content.length()) {
+            case 10:
+                return toLocalDate(content).atStartOfDay();
+            case 16:
+                return LocalDateTime.parse(content, DATE_MINUTE);
+            default:
+                return LocalDateTime.parse(content, DATE_TIME);
+        }
+    }
+
+    /**
+     * @return 以yyyy-MM-dd开头且后面不再跟数字时返回日期，否则返回null
+     */
+    private static LocalDate parseIsoDate(String content) {
+        if (content.length() < 10 || content.charAt(4) != '-' || content.charAt(7) != '-'
+                || (content.length() > 10 && Character.isDigit(content.charAt(10)))) {
+            return null;
+        }
+        int year = digits(content, 0, 4);
+        int month = digits(content, 5, 7);
+        int day = digits(content, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 28 && day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return LocalDate.of(year, month, 1).lengthOfMonth();
+    }
+
+    /**
+     * @return 非数字时返回-1
+     */
+    private static int digits(String content, int begin, int end) {
+        int value = 0;
+        for (int i = begin; i < end; i++) {
+            char c = content.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 一列的赋值器和转换器
+     */
+    static final class Binding {
+        private final FieldAccessors.Setter setter;
+        private final CellConverter<?> converter;
+        private final boolean primitive;
+
+        private Binding(FieldAccessors.Setter setter, CellConverter<?> converter) {
+            this.setter = setter;
+            this.converter = converter;
+            this.primitive = setter.getType().isPrimitive();
+        }
+
+        void set(Object target, String content) throws Exception {
+            Object value = converter.convert(content);
+            if (value == null && primitive) {
+                return;
+            }
+            setter.set(target, value);
+        }
+    }
+}
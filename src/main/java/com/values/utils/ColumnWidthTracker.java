@@ -0,0 +1,93 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+/**
+ * @Description 写入单元格时同步统计每列的最大显示宽度，不需要写完后再重新扫描整个工作表。
+ * 中日韩文字和全角字符按两个字符宽度计算；采样模式下只统计前N行数据，表头总是参与统计
+ */
+final class ColumnWidthTracker {
+    private final int[] widths;
+    private final int sampleRows;
+    private int measuredRows;
+
+    /**
+     * @param columns    列数
+     * @param sampleRows 参与统计的数据行数，小于1时统计所有行
+     */
+    ColumnWidthTracker(int columns, int sampleRows) {
+        this.widths = new int[columns];
+        this.sampleRows = sampleRows;
+    }
+
+    /**
+     * @return 当前行是否还需要统计宽度，调用方据此跳过采样范围外的行
+     */
+    boolean isMeasuring() {
+        return sampleRows < 1 || measuredRows < sampleRows;
+    }
+
+    void measure(int column, CharSequence content) {
+        int width = displayWidth(content);
+        if (widths[column] < width) {
+            widths[column] = width;
+        }
+    }
+
+    /**
+     * 表头不计入采样行数
+     */
+    void measureHeader(String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            measure(i, names[i]);
+        }
+    }
+
+    void endRow() {
+        measuredRows++;
+    }
+
+    int getColumns() {
+        return widths.length;
+    }
+
+    /**
+     * @return 该列最宽单元格的宽度，单位为字符
+     */
+    int getWidth(int column) {
+        return widths[column];
+    }
+
+    /**
+     * @param content 单元格内容
+     * @return 显示宽度，全角字符算两个字符宽度
+     */
+    static int displayWidth(CharSequence content) {
+        int width = 0;
+        for (int i = 0, len = content.length(); i < len; i++) {
+            char c = content.charAt(i);
+            if (Character.isLowSurrogate(c)) {
+                // 代理对的宽度已在高位代理上计算
+                continue;
+            }
+            width += isWide(c) ? 2 : 1;
+        }
+        return width;
+    }
+
+    private static boolean isWide(char c) {
+        if (c < 0x1100) {
+            return false;
+        }
+        return c <= 0x115F                       // 朝鲜文字母
+                || (c >= 0x2E80 && c <= 0xA4CF)  // 中日韩部首、标点、假名、统一汉字、彝文
+                || (c >= 0xAC00 && c <= 0xD7A3)  // 朝鲜文音节
+                || Character.isHighSurrogate(c)  // 扩展区汉字等
+                || (c >= 0xF900 && c <= 0xFAFF)  // 兼容汉字
+                || (c >= 0xFE30 && c <= 0xFE4F)  // 兼容标点
+                || (c >= 0xFF00 && c <= 0xFF60)  // 全角字符
+                || (c >= 0xFFE0 && c <= 0xFFE6);
+    }
+}
@@ -0,0 +1,528 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * @Description CSV/TSV导入导出工具类，fieldMap的用法同ExcelUtils。适合只做数据导出的场景，
+ * 不经过jxl/POI，直接按行读写文本流。导出带UTF-8 BOM，Excel可以直接打开，字段按RFC 4180加引号。
+ * 导出时默认在以=、+、-、@等开头的文本前加'，防止Excel打开时把它当作公式执行（CSV注入），
+ * 导入时默认去掉这个'，导出再导入的文本不变
+ */
+public class CsvUtils {
+    /**
+     * CSV的分隔符
+     */
+    public static final char COMMA = ',';
+
+    /**
+     * TSV的分隔符
+     */
+    public static final char TAB = '\t';
+
+    private static final char BOM = '\uFEFF';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和中文列名的对应关系，同ExcelUtils.listToExcel
+     * @param delimiter 分隔符，COMMA或TAB
+     * @param out       导出流
+     * @throws Exception
+     * @MethodName : listToCsv
+     * @Description : 导出CSV/TSV
+     */
+    public static <T> void listToCsv(List<T> list, LinkedHashMap<String, String> fieldMap, char delimiter,
+                                     OutputStream out) throws Exception {
+
+        if (list == null || list.size() == 0) {
+            throw new Exception("数据源中没有任何数据");
+        }
+        iteratorToCsv(list.iterator(), fieldMap, delimiter, out);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和中文列名的对应关系
+     * @param delimiter 分隔符，COMMA或TAB
+     * @param response  使用response可以导出到浏览器
+     * @throws Exception
+     * @MethodName : listToCsv
+     * @Description : 导出CSV/TSV到浏览器
+     */
+    public static <T> void listToCsv(List<T> list, LinkedHashMap<String, String> fieldMap, char delimiter,
+                                     HttpServletResponse response) throws Exception {
+
+        if (list == null || list.size() == 0) {
+            throw new Exception("数据源中没有任何数据");
+        }
+        iteratorToCsv(list.iterator(), fieldMap, delimiter, response);
+    }
+
+    /**
+     * @param rows      数据源，如数据库游标，边读边写
+     * @param fieldMap  类的英文属性和中文列名的对应关系
+     * @param delimiter 分隔符，COMMA或TAB
+     * @param out       导出流，写完后不关闭
+     * @return 导出的行数，不含列头
+     * @throws Exception
+     * @MethodName : iteratorToCsv
+     * @Description : 流式导出CSV/TSV，可能被当作公式的文本前加'
+     */
+    public static <T> long iteratorToCsv(Iterator<T> rows, LinkedHashMap<String, String> fieldMap, char delimiter,
+                                         OutputStream out) throws Exception {
+        return iteratorToCsv(rows, fieldMap, delimiter, true, out);
+    }
+
+    /**
+     * @param rows           数据源，如数据库游标，边读边写
+     * @param fieldMap       类的英文属性和中文列名的对应关系
+     * @param delimiter      分隔符，COMMA或TAB
+     * @param escapeFormulas 是否在以=、+、-、@、制表符、回车开头的文本前加'，数字类型的值不加，
+     *                       已经以'加这些字符开头的文本也再加一个'，导入时可以原样还原；
+     *                       只有确定文件不会用Excel等电子表格打开时才应为false
+     * @param out            导出流，写完后不关闭
+     * @return 导出的行数，不含列头
+     * @throws Exception
+     * @MethodName : iteratorToCsv
+     * @Description : 流式导出CSV/TSV
+     */
+    public static <T> long iteratorToCsv(Iterator<T> rows, LinkedHashMap<String, String> fieldMap, char delimiter,
+                                         boolean escapeFormulas, OutputStream out) throws Exception {
+
+        String[] enFields = new String[fieldMap.size()];
+        String[] cnFields = new String[fieldMap.size()];
+        int count = 0;
+        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+            enFields[count] = entry.getKey();
+            cnFields[count] = entry.getValue();
+            count++;
+        }
+
+        CsvWriter writer = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), delimiter);
+        long rowCount = 0;
+        try {
+            writer.writeBom();
+            for (String cnField : cnFields) {
+                writer.writeField(cnField);
+            }
+            writer.endRow();
+
+            while (rows.hasNext()) {
+                T item = rows.next();
+                for (String enField : enFields) {
+                    Object value = ExcelUtils.getFieldValueByNameSequence(enField, item);
+                    String text = value == null ? "" : value.toString();
+                    if (escapeFormulas && !(value instanceof Number) && isFormula(text)) {
+                        text = "'" + text;
+                    }
+                    writer.writeField(text);
+                }
+                writer.endRow();
+                rowCount++;
+            }
+            writer.flush();
+
+        } catch (Exception e) {
+            throw new Exception("导出CSV失败", e);
+        }
+        return rowCount;
+    }
+
+    /**
+     * @param rows      数据源
+     * @param fieldMap  类的英文属性和中文列名的对应关系
+     * @param delimiter 分隔符，COMMA或TAB
+     * @param response  使用response可以导出到浏览器
+     * @throws Exception
+     * @MethodName : iteratorToCsv
+     * @Description : 流式导出CSV/TSV到浏览器
+     */
+    public static <T> void iteratorToCsv(Iterator<T> rows, LinkedHashMap<String, String> fieldMap, char delimiter,
+                                         HttpServletResponse response) throws Exception {
+
+        // 设置默认文件名为当前时间：年月日时分秒
+        String fileName = new SimpleDateFormat("yyyyMMddhhmmss").format(new Date());
+
+        response.reset();
+        if (TAB == delimiter) {
+            response.setContentType("text/tab-separated-values;charset=UTF-8");
+            response.setHeader("Content-disposition", "attachment; filename=" + fileName + ".tsv");
+        } else {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader("Content-disposition", "attachment; filename=" + fileName + ".csv");
+        }
+
+        try (OutputStream out = response.getOutputStream()) {
+            iteratorToCsv(rows, fieldMap, delimiter, out);
+        }
+    }
+
+    /**
+     * @param in          CSV/TSV输入流，UTF-8编码，可以带BOM
+     * @param delimiter   分隔符，COMMA或TAB
+     * @param entityClass 每一行要转化的对象类型
+     * @param fieldMap    中文列头和类的英文属性的对应关系Map，同ExcelUtils.excelToList
+     * @return 转化的对象
+     * @throws Exception
+     * @MethodName : csvToList
+     * @Description : 将CSV/TSV转化为List
+     */
+    public static <T> List<T> csvToList(InputStream in, char delimiter, Class<T> entityClass,
+                                        LinkedHashMap<String, String> fieldMap) throws Exception {
+        return csvToList(in, delimiter, entityClass, fieldMap, true);
+    }
+
+    /**
+     * @param in               CSV/TSV输入流，UTF-8编码，可以带BOM
+     * @param delimiter        分隔符，COMMA或TAB
+     * @param entityClass      每一行要转化的对象类型
+     * @param fieldMap         中文列头和类的英文属性的对应关系Map
+     * @param unescapeFormulas 是否去掉导出时加在公式类文本前的'，同iteratorToCsv的escapeFormulas
+     * @return 转化的对象
+     * @throws Exception
+     * @MethodName : csvToList
+     * @Description : 将CSV/TSV转化为List
+     */
+    public static <T> List<T> csvToList(InputStream in, char delimiter, Class<T> entityClass,
+                                        LinkedHashMap<String, String> fieldMap, boolean unescapeFormulas)
+            throws Exception {
+        List<T> resultList = new ArrayList<>();
+        csvToList(in, delimiter, entityClass, fieldMap, unescapeFormulas, Integer.MAX_VALUE, resultList::addAll);
+        return resultList;
+    }
+
+    /**
+     * @param in          CSV/TSV输入流，UTF-8编码，可以带BOM
+     * @param delimiter   分隔符，COMMA或TAB
+     * @param entityClass 每一行要转化的对象类型
+     * @param fieldMap    中文列头和类的英文属性的对应关系Map
+     * @param batchSize   每批的对象个数
+     * @param consumer    每凑满一批回调一次，最后不足一批的对象也会回调
+     * @return 转化的行数，不含列头
+     * @throws Exception 列头缺少字段，或单元格转换失败（提示行号和列名）
+     * @MethodName : csvToList
+     * @Description : 流式读取CSV/TSV，逐行转化为对象后分批交给consumer处理，空行跳过，
+     * 去掉导出时加在公式类文本前的'
+     */
+    public static <T> int csvToList(InputStream in, char delimiter, Class<T> entityClass,
+                                    LinkedHashMap<String, String> fieldMap, int batchSize,
+                                    Consumer<List<T>> consumer) throws Exception {
+        return csvToList(in, delimiter, entityClass, fieldMap, true, batchSize, consumer);
+    }
+
+    /**
+     * @param in               CSV/TSV输入流，UTF-8编码，可以带BOM
+     * @param delimiter        分隔符，COMMA或TAB
+     * @param entityClass      每一行要转化的对象类型
+     * @param fieldMap         中文列头和类的英文属性的对应关系Map
+     * @param unescapeFormulas 是否去掉导出时加在公式类文本前的'（只去掉一个），
+     *                         文件不是由iteratorToCsv默认导出时可以为false
+     * @param batchSize        每批的对象个数
+     * @param consumer         每凑满一批回调一次，最后不足一批的对象也会回调
+     * @return 转化的行数，不含列头
+     * @throws Exception 列头缺少字段，或单元格转换失败（提示行号和列名）
+     * @MethodName : csvToList
+     * @Description : 流式读取CSV/TSV，逐行转化为对象后分批交给consumer处理，空行跳过
+     */
+    public static <T> int csvToList(InputStream in, char delimiter, Class<T> entityClass,
+                                    LinkedHashMap<String, String> fieldMap, boolean unescapeFormulas, int batchSize,
+                                    Consumer<List<T>> consumer) throws Exception {
+
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), delimiter);
+        List<String> fields = new ArrayList<>();
+        if (!reader.readRow(fields)) {
+            return 0;
+        }
+
+        // 将列名和列号放入Map中,这样通过列名就可以拿到列号
+        Map<String, Integer> colMap = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            colMap.put(fields.get(i).trim(), i);
+        }
+
+        String[] cnFields = new String[fieldMap.size()];
+        CellConverters.Binding[] bindings = new CellConverters.Binding[fieldMap.size()];
+        int[] cols = new int[fieldMap.size()];
+        int count = 0;
+        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+            Integer col = colMap.get(entry.getKey());
+            if (col == null) {
+                throw new Exception("CSV中缺少必要的字段，或字段名称有误");
+            }
+            cnFields[count] = entry.getKey();
+            bindings[count] = CellConverters.bind(entityClass, entry.getValue());
+            cols[count] = col;
+            count++;
+        }
+
+        int size = Math.max(1, batchSize);
+        List<T> batch = new ArrayList<>(Math.min(size, 1024));
+        int rowCount = 0;
+        while (reader.readRow(fields)) {
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            T entity = entityClass.newInstance();
+            for (int i = 0; i < bindings.length; i++) {
+                String content = cols[i] < fields.size() ? fields.get(cols[i]) : "";
+                if (unescapeFormulas && content.startsWith("'") && isFormula(content.substring(1))) {
+                    content = content.substring(1);
+                }
+                content = content.trim();
+                try {
+                    bindings[i].set(entity, content);
+                } catch (Exception e) {
+                    // 提示给用户的行号从1开始，含列头
+                    throw new Exception(new ExcelImportError(reader.getLineNumber(), cnFields[i], content,
+                            e instanceof NumberFormatException ? "不是有效的数字" : e.getMessage()).toString(), e);
+                }
+            }
+            batch.add(entity);
+            rowCount++;
+            if (batch.size() >= size) {
+                consumer.accept(batch);
+                batch = new ArrayList<>(Math.min(size, 1024));
+            }
+        }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        return rowCount;
+    }
+
+    /**
+     * @return 以=、+、-、@、制表符、回车开头，Excel会当作公式或在前面补=的文本，
+     * 或者是在这样的文本前加了若干个'（导入时只去掉一个'，所以导出时也要再加一个）
+     */
+    private static boolean isFormula(String text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) == '\'') {
+            start++;
+        }
+        if (start == text.length()) {
+            return false;
+        }
+        switch (text.charAt(start)) {
+            case '=':
+            case '+':
+            case '-':
+            case '@':
+            case '\t':
+            case '\r':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @Description : 带复用缓冲区的写入器，只在缓冲区满或写完时写到底层流
+     */
+    private static class CsvWriter {
+        private final Writer out;
+        private final char delimiter;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private boolean firstField = true;
+
+        CsvWriter(Writer out, char delimiter) {
+            this.out = out;
+            this.delimiter = delimiter;
+        }
+
+        void writeBom() throws IOException {
+            append(BOM);
+        }
+
+        void writeField(String value) throws IOException {
+            if (!firstField) {
+                append(delimiter);
+            }
+            firstField = false;
+            if (!needsQuote(value)) {
+                append(value);
+                return;
+            }
+            append('"');
+            for (int i = 0, len = value.length(); i < len; i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    append('"');
+                }
+                append(c);
+            }
+            append('"');
+        }
+
+        void endRow() throws IOException {
+            append('\r');
+            append('\n');
+            firstField = true;
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        private boolean needsQuote(String value) {
+            for (int i = 0, len = value.length(); i < len; i++) {
+                char c = value.charAt(i);
+                if (c == delimiter || c == '"' || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void append(char c) throws IOException {
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            buffer[position++] = c;
+        }
+
+        private void append(String value) throws IOException {
+            int offset = 0;
+            int len = value.length();
+            while (offset < len) {
+                if (position == buffer.length) {
+                    out.write(buffer, 0, position);
+                    position = 0;
+                }
+                int n = Math.min(len - offset, buffer.length - position);
+                value.getChars(offset, offset + n, buffer, position);
+                position += n;
+                offset += n;
+            }
+        }
+    }
+
+    /**
+     * @Description : 按RFC 4180逐行解析，引号中的分隔符、换行和两个连续的引号都作为内容；
+     * 读缓冲区和拼接字段的StringBuilder在所有行之间复用
+     */
+    private static class CsvReader {
+        private final Reader in;
+        private final char delimiter;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder field = new StringBuilder();
+        private int position;
+        private int limit;
+        private int lineNumber;
+        private int nextLineNumber = 1;
+        private boolean started;
+
+        CsvReader(Reader in, char delimiter) {
+            this.in = in;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * @return 最近读到的一行开始的行号，从1开始
+         */
+        int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * @param fields 清空后放入该行的所有字段
+         * @return 已经读完时返回false
+         */
+        boolean readRow(List<String> fields) throws IOException {
+            fields.clear();
+            int c = read();
+            if (c < 0) {
+                return false;
+            }
+            if (!started) {
+                started = true;
+                if (c == BOM) {
+                    c = read();
+                    if (c < 0) {
+                        return false;
+                    }
+                }
+            }
+            lineNumber = nextLineNumber;
+
+            boolean quoted = false;
+            field.setLength(0);
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        break;
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            nextLineNumber++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' || c == '\n' || c < 0) {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    if (c >= 0) {
+                        nextLineNumber++;
+                    }
+                    break;
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return true;
+        }
+
+        private int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer[position];
+        }
+
+        private boolean fill() throws IOException {
+            int n = in.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = n;
+            return true;
+        }
+    }
+}
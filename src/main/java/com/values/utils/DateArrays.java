@@ -0,0 +1,176 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved.
+ * WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+package com.values.utils;
+
+import java.util.Date;
+import java.util.stream.IntStream;
+
+/**
+ * @Description DateUtils批量计算的实现：输入为毫秒数（long[]）或epoch day（int[]，距1970-01-01的天数）数组，
+ * 结果写入调用方传入的数组，不按元素创建对象。只有加减的循环可以被JIT向量化，涉及时区的计算每批只取一次时差表。
+ * 数组较大且parallel为true时按块在ForkJoinPool.commonPool()中并行计算，每块是连续的一段
+ */
+final class DateArrays {
+    /**
+     * 并行计算时每块的元素个数，不足两块时在当前线程计算
+     */
+    static final int PARALLEL_CHUNK_SIZE = 1 << 14;
+
+    private DateArrays() {
+    }
+
+    static void plusDays(long[] millis, int days, long[] out, boolean parallel) {
+        checkLength(millis.length, out.length);
+        long delta = days * EpochDays.MILLIS_PER_DAY;
+        run(millis.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = millis[i] + delta;
+            }
+        });
+    }
+
+    static void plusDays(int[] epochDays, int days, int[] out, boolean parallel) {
+        checkLength(epochDays.length, out.length);
+        run(epochDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = epochDays[i] + days;
+            }
+        });
+    }
+
+    static void durationInDays(long[] startMillis, long[] endMillis, int[] out, boolean parallel) {
+        checkLength(startMillis.length, endMillis.length);
+        checkLength(startMillis.length, out.length);
+        run(startMillis.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                // 同Instant.until(DAYS)，向0取整
+                out[i] = (int) ((startMillis[i] - endMillis[i]) / EpochDays.MILLIS_PER_DAY);
+            }
+        });
+    }
+
+    static void durationInDays(int[] startDays, int[] endDays, int[] out, boolean parallel) {
+        checkLength(startDays.length, endDays.length);
+        checkLength(startDays.length, out.length);
+        run(startDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = startDays[i] - endDays[i];
+            }
+        });
+    }
+
+    static void calDiffMonth(long[] startMillis, long[] endMillis, int[] out, boolean parallel) {
+        checkLength(startMillis.length, endMillis.length);
+        checkLength(startMillis.length, out.length);
+        EpochDays.Zone zone = EpochDays.zone();
+        int february = february();
+        run(startMillis.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                long start = startMillis[i];
+                long end = endMillis[i];
+                // 年月同getYear、getMonth（java.time），日同getDay（Calendar），两者的时差在1901年以前可能不同
+                long startDay = Math.floorDiv(start + zone.offset(start), EpochDays.MILLIS_PER_DAY);
+                long endDay = Math.floorDiv(end + zone.offset(end), EpochDays.MILLIS_PER_DAY);
+                long startLegacyDay = zone.legacyEpochDay(start);
+                long endLegacyDay = zone.legacyEpochDay(end);
+                if (startLegacyDay == EpochDays.UNHANDLED || endLegacyDay == EpochDays.UNHANDLED) {
+                    out[i] = DateUtils.calDiffMonth(new Date(start), new Date(end));
+                    continue;
+                }
+                out[i] = calDiffMonth(startDay, startLegacyDay, endDay, endLegacyDay, february);
+            }
+        });
+    }
+
+    static void calDiffMonth(int[] startDays, int[] endDays, int[] out, boolean parallel) {
+        checkLength(startDays.length, endDays.length);
+        checkLength(startDays.length, out.length);
+        int february = february();
+        run(startDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                out[i] = calDiffMonth(startDays[i], startDays[i], endDays[i], endDays[i], february);
+            }
+        });
+    }
+
+    /**
+     * 同DateUtils.calDiffMonth(Date, Date)，包括结束日是当年2月最后一天时也算满一个月的处理
+     *
+     * @param startDay       开始日期，取年月
+     * @param startDayOfDate 开始日期，取日
+     * @param february       当年2月的天数
+     */
+    private static int calDiffMonth(long startDay, long startDayOfDate, long endDay, long endDayOfDate, int february) {
+        // year << 9 | month << 5 | day，见EpochDays.yearMonthDay
+        long start = EpochDays.yearMonthDay(startDay);
+        long end = EpochDays.yearMonthDay(endDay);
+        int startDate = startDayOfDate == startDay ? (int) start & 0x1F : EpochDays.dayOfMonth(startDayOfDate);
+        int endDate = endDayOfDate == endDay ? (int) end & 0x1F : EpochDays.dayOfMonth(endDayOfDate);
+        int months = (int) ((end >> 9) - (start >> 9)) * 12 + ((int) (end >> 5) & 0xF) - ((int) (start >> 5) & 0xF);
+        if (startDate > endDate && endDate != february) {
+            months--;
+        }
+        return months;
+    }
+
+    private static int february() {
+        return DateUtils.getDaysOfMonth(DateUtils.yearOfEpochDay(DateUtils.currentEpochDay()), 2);
+    }
+
+    static void isDateTimeBetween(long[] targetMillis, long startMillis, long endMillis, boolean[] out, boolean parallel) {
+        checkLength(targetMillis.length, out.length);
+        EpochDays.Zone zone = EpochDays.zone();
+        // 同isDateTimeBetween(Date, Date, Date)，按本地时间比较
+        long start = startMillis + zone.offset(startMillis);
+        long end = endMillis + zone.offset(endMillis);
+        run(targetMillis.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                long target = targetMillis[i] + zone.offset(targetMillis[i]);
+                out[i] = start < target && end > target;
+            }
+        });
+    }
+
+    static void isDateTimeBetween(long[] targetMillis, long[] startMillis, long[] endMillis, boolean[] out,
+            boolean parallel) {
+        checkLength(targetMillis.length, startMillis.length);
+        checkLength(targetMillis.length, endMillis.length);
+        checkLength(targetMillis.length, out.length);
+        EpochDays.Zone zone = EpochDays.zone();
+        run(targetMillis.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                long target = targetMillis[i] + zone.offset(targetMillis[i]);
+                long start = startMillis[i] + zone.offset(startMillis[i]);
+                long end = endMillis[i] + zone.offset(endMillis[i]);
+                out[i] = start < target && end > target;
+            }
+        });
+    }
+
+    private static void checkLength(int expected, int actual) {
+        if (actual < expected) {
+            throw new IllegalArgumentException("数组长度不足，需要" + expected + "，实际" + actual);
+        }
+    }
+
+    private static void run(int length, boolean parallel, Range range) {
+        if (!parallel || length < 2 * PARALLEL_CHUNK_SIZE) {
+            range.apply(0, length);
+            return;
+        }
+        int chunks = (length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * PARALLEL_CHUNK_SIZE;
+            range.apply(from, Math.min(length, from + PARALLEL_CHUNK_SIZE));
+        });
+    }
+
+    /**
+     * 处理[from, to)这一段
+     */
+    private interface Range {
+        void apply(int from, int to);
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved.
+ * WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+package com.values.utils;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description 按pattern缓存的日期格式：不可变的DateTimeFormatter直接共用，SimpleDateFormat缓存一个原型，每次使用时克隆
+ * （克隆比重新编译pattern便宜，SimpleDateFormat不是线程安全的，不能共用）。缓存的pattern个数有上限，超出后不再缓存。
+ * <p>
+ * Date的格式化和解析要与SimpleDateFormat的结果完全一致，所以只有纯数字的pattern（y、M、d、H、m、s、SSS）
+ * 且在公历范围内时才用DateTimeFormatter，其余情况仍用SimpleDateFormat：
+ * SimpleDateFormat的文本字段与java.time的本地化数据不同，1582年以前按儒略历计算，两位年份按当前时间前后百年解析，
+ * 宽松模式下2月30日顺延为3月1日，数字字段会读完所有相邻的数字，超过四位的年份不带正号。
+ * 定长的数字格式（如yyyy-MM-dd）解析时先用FastDateParser逐字符计算
+ */
+final class DatePattern {
+    /**
+     * 最多缓存的pattern个数，pattern通常是常量，上限只是防止调用方传入动态拼接的pattern时无限增长
+     */
+    static final int MAX_PATTERNS = 256;
+
+    /**
+     * 1583-01-01T00:00:00Z，此后SimpleDateFormat使用的GregorianCalendar与java.time的公历一致
+     */
+    private static final long GREGORIAN_MILLIS = -12212553600000L;
+
+    /**
+     * 9999-01-01T00:00:00Z，超过四位的年份DateTimeFormatter会加上正号
+     */
+    private static final long MAX_FORMAT_MILLIS = 253370764800000L;
+
+    private static final ConcurrentMap<String, DatePattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private final String pattern;
+    /**
+     * 格式化Date时可以用DateTimeFormatter
+     */
+    private final boolean formatCompatible;
+    /**
+     * 解析为Date时可以先用严格模式的DateTimeFormatter，为null时只用SimpleDateFormat
+     */
+    private final DateTimeFormatter strictParser;
+    /**
+     * 定长的数字格式，为null时不能逐字符解析
+     */
+    private final FastDateParser fastParser;
+    private volatile DateTimeFormatter formatter;
+    private volatile SimpleDateFormat prototype;
+
+    private DatePattern(String pattern) {
+        this.pattern = pattern;
+        Compatibility compatibility = new Compatibility(pattern);
+        this.formatCompatible = compatibility.format;
+        this.strictParser = compatibility.parse
+                ? DateTimeFormatter.ofPattern(compatibility.strictPattern).withResolverStyle(ResolverStyle.STRICT)
+                : null;
+        this.fastParser = FastDateParser.of(pattern);
+    }
+
+    static DatePattern of(String pattern) {
+        DatePattern datePattern = PATTERNS.get(pattern);
+        if (datePattern == null) {
+            datePattern = new DatePattern(pattern);
+            if (PATTERNS.size() < MAX_PATTERNS) {
+                DatePattern existing = PATTERNS.putIfAbsent(pattern, datePattern);
+                if (existing != null) {
+                    datePattern = existing;
+                }
+            }
+        }
+        return datePattern;
+    }
+
+    /**
+     * @return java.time语义的格式，pattern不合法时抛出IllegalArgumentException
+     */
+    DateTimeFormatter formatter() {
+        DateTimeFormatter result = formatter;
+        if (result == null) {
+            result = DateTimeFormatter.ofPattern(pattern);
+            formatter = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return 新的SimpleDateFormat，调用方可以随意修改，pattern不合法时抛出IllegalArgumentException
+     */
+    SimpleDateFormat newSimpleDateFormat() {
+        SimpleDateFormat result = prototype;
+        if (result == null) {
+            result = new SimpleDateFormat(pattern);
+            prototype = result;
+        }
+        SimpleDateFormat dateFormat = (SimpleDateFormat) result.clone();
+        // 原型创建后默认时区可能被修改过（如启动时设置为GMT+8）
+        dateFormat.setTimeZone(TimeZone.getDefault());
+        return dateFormat;
+    }
+
+    /**
+     * @return 同new SimpleDateFormat(pattern).format(date)
+     */
+    String format(Date date) {
+        // java.sql.Date不支持toInstant，按毫秒数转换
+        long millis = date.getTime();
+        if (formatCompatible && millis >= GREGORIAN_MILLIS && millis < MAX_FORMAT_MILLIS) {
+            TimeZone timeZone = TimeZone.getDefault();
+            ZoneOffset offset = timeZone.toZoneId().getRules().getOffset(Instant.ofEpochMilli(millis));
+            if (sameOffset(timeZone, millis, offset)) {
+                return formatter().format(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                        (int) Math.floorMod(millis, 1000L) * 1000000, offset));
+            }
+        }
+        return newSimpleDateFormat().format(date);
+    }
+
+    /**
+     * @return TimeZone与java.time在该时刻的时差是否相同。两者的时区数据有差异，如上海1901年以前java.time按地方平时+8:05:43计算
+     */
+    private static boolean sameOffset(TimeZone timeZone, long millis, ZoneOffset offset) {
+        return timeZone.getOffset(millis) == offset.getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * 解析失败时不抛异常、不打印堆栈：先按定长格式逐字符解析，再用严格模式的DateTimeFormatter，
+     * 最后用SimpleDateFormat.parse(String, ParsePosition)
+     *
+     * @param text 日期文本，不能为null
+     * @return 同new SimpleDateFormat(pattern).parse(text).getTime()，解析失败时返回FastDateParser.INVALID
+     */
+    long parseMillis(CharSequence text) {
+        if (fastParser != null) {
+            long millis = fastParser.parse(text);
+            if (millis != FastDateParser.UNHANDLED) {
+                return millis;
+            }
+        }
+        if (strictParser != null) {
+            long millis = parseStrict(text);
+            if (millis != FastDateParser.UNHANDLED) {
+                return millis;
+            }
+        }
+        SimpleDateFormat dateFormat = newSimpleDateFormat();
+        if (fastParser != null && fastParser.isTwoDigitYear()) {
+            // 原型的两位年份起点是原型创建时间往前80年，按当前时间重新设置
+            dateFormat.set2DigitYearStart(new Date(FastDateParser.centuryStart()));
+        }
+        Date date = dateFormat.parse(text.toString(), new ParsePosition(0));
+        return date == null ? FastDateParser.INVALID : date.getTime();
+    }
+
+    /**
+     * @return 按严格模式解析出的毫秒数，结果可能与SimpleDateFormat不同或解析失败时返回FastDateParser.UNHANDLED
+     */
+    private long parseStrict(CharSequence text) {
+        ParsePosition position = new ParsePosition(0);
+        // parseUnresolved不校验字段范围，失败时返回null而不是抛异常
+        TemporalAccessor parsed = strictParser.parseUnresolved(text, position);
+        if (parsed == null || position.getErrorIndex() >= 0) {
+            return FastDateParser.UNHANDLED;
+        }
+        int end = position.getIndex();
+        if (end < text.length() && Character.isDigit(text.charAt(end))) {
+            // SimpleDateFormat会把后面的数字也读进最后一个字段
+            return FastDateParser.UNHANDLED;
+        }
+        if (!parsed.isSupported(ChronoField.YEAR) || !parsed.isSupported(ChronoField.MONTH_OF_YEAR)
+                || !parsed.isSupported(ChronoField.DAY_OF_MONTH)) {
+            return FastDateParser.UNHANDLED;
+        }
+        long year = parsed.getLong(ChronoField.YEAR);
+        if (year > 9999) {
+            return FastDateParser.UNHANDLED;
+        }
+        return FastDateParser.toEpochMillis((int) year, (int) parsed.getLong(ChronoField.MONTH_OF_YEAR),
+                (int) parsed.getLong(ChronoField.DAY_OF_MONTH), field(parsed, ChronoField.HOUR_OF_DAY),
+                field(parsed, ChronoField.MINUTE_OF_HOUR), field(parsed, ChronoField.SECOND_OF_MINUTE),
+                field(parsed, ChronoField.NANO_OF_SECOND) / 1000000);
+    }
+
+    private static int field(TemporalAccessor parsed, ChronoField field) {
+        return parsed.isSupported(field) ? (int) parsed.getLong(field) : 0;
+    }
+
+    /**
+     * 检查pattern中的每个字段在SimpleDateFormat和DateTimeFormatter中的含义是否相同
+     */
+    private static final class Compatibility {
+        private boolean format = true;
+        private boolean parse = true;
+        private final StringBuilder strict = new StringBuilder();
+        private final String strictPattern;
+
+        Compatibility(String pattern) {
+            int i = 0;
+            int length = pattern.length();
+            while (i < length && (format || parse)) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    // 引号中的文本原样输出，两个引号表示引号本身，两者规则相同
+                    int end = pattern.indexOf('\'', i + 1);
+                    if (end < 0) {
+                        format = parse = false;
+                        break;
+                    }
+                    strict.append(pattern, i, end + 1);
+                    i = end + 1;
+                } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    int end = i + 1;
+                    while (end < length && pattern.charAt(end) == c) {
+                        end++;
+                    }
+                    field(c, end - i);
+                    i = end;
+                } else {
+                    if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                        // DateTimeFormatter的保留字符
+                        format = parse = false;
+                    }
+                    strict.append(c);
+                    i++;
+                }
+            }
+            this.strictPattern = parse ? strict.toString() : null;
+        }
+
+        private void field(char letter, int count) {
+            switch (letter) {
+                case 'y':
+                    // 两位及一位年份解析时按当前时间前后百年推算，与java.time不同
+                    parse &= count >= 3;
+                    append('u', count);
+                    break;
+                case 'M':
+                case 'd':
+                case 'H':
+                case 'm':
+                case 's':
+                    // 三位以上时SimpleDateFormat补0，DateTimeFormatter报错或输出文本
+                    format &= count <= 2;
+                    parse &= count <= 2;
+                    append(letter, count);
+                    break;
+                case 'S':
+                    // SimpleDateFormat的S是毫秒数，java.time的S是秒的小数部分，只有三位时相同
+                    format &= count == 3;
+                    parse &= count == 3;
+                    append(letter, count);
+                    break;
+                default:
+                    format = parse = false;
+            }
+        }
+
+        private void append(char letter, int count) {
+            for (int i = 0; i < count; i++) {
+                strict.append(letter);
+            }
+        }
+    }
+}
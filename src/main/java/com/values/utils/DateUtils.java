@@ -7,11 +7,12 @@ package com.values.utils;
 import org.slf4j.LoggerFactory;
 
 import java.text.DateFormat;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
 import java.util.*;
 
 /**
@@ -27,6 +28,13 @@ abstract public class DateUtils {
     
     public static final String DATE_YYYYMM_FORMAT = "yyyy-MM";
 
+    /**
+     * parseEpochMillis格式不符时的返回值
+     */
+    public static final long INVALID_MILLIS = FastDateParser.INVALID;
+
+    private static volatile BusinessClock businessClock = BusinessClock.system();
+
     private static int calculateUtcOffsetInHours() {
         int timeZoneHoursInMills = TimeZone.getTimeZone(ZoneId.systemDefault()).getRawOffset()
                 - TimeZone.getTimeZone(ZoneOffset.UTC).getRawOffset();
@@ -37,8 +45,21 @@ abstract public class DateUtils {
 
     ;
 
+    /**
+     * 替换取当前时间的时钟，所有取当前时间、当前日期的方法都使用这个时钟，测试时可以传入BusinessClock.fixed
+     *
+     * @param clock 业务时钟，为null时恢复为系统时钟
+     */
+    public static void setBusinessClock(BusinessClock clock) {
+        businessClock = clock == null ? BusinessClock.system() : clock;
+    }
+
+    public static BusinessClock getBusinessClock() {
+        return businessClock;
+    }
+
     public static long currentTimeSeconds() {
-        return System.currentTimeMillis() / 1000L;
+        return businessClock.millis() / 1000L;
     }
 
     public static long getTimeSeconds(Date date) {
@@ -46,35 +67,79 @@ abstract public class DateUtils {
     }
 
     public static Date getCurrentDateTime() {
-        return new Date();
+        return new Date(businessClock.millis());
     }
 
     public static int getCurrentHour() {
-        return LocalTime.now(ZoneId.systemDefault()).getHour();
+        return businessClock.hour();
     }
 
     public static Date getCurrentDate() {
-        return localDate2Date(LocalDate.now());
+        return new Date(businessClock.startOfDayMillis());
     }
 
     public static String parseDate(Date date) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat(TIME_STAMP_FORMAT);
-        return dateFormat.format(date);
+        return DatePattern.of(TIME_STAMP_FORMAT).format(date);
     }
 
     public static String parseDate(Date date, String format) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat(format);
-        return dateFormat.format(date);
+        return DatePattern.of(format).format(date);
     }
 
     /**
-     * Please DO NOT make the modifier of this method to PUBLIC
+     * 按pattern格式化日期，结果同SimpleDateFormat，格式按pattern缓存，不在每次调用时编译
      *
-     * @param date
-     * @return
+     * @param date    日期
+     * @param pattern SimpleDateFormat的格式
+     * @return 格式化后的文本
      */
-    private static LocalDate date2LocalDate(Date date) {
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    public static String format(Date date, String pattern) {
+        return DatePattern.of(pattern).format(date);
+    }
+
+    /**
+     * 按pattern格式化java.time的日期时间（LocalDate、LocalDateTime、ZonedDateTime等）
+     *
+     * @param temporal 日期时间
+     * @param pattern  DateTimeFormatter的格式
+     * @return 格式化后的文本
+     */
+    public static String format(TemporalAccessor temporal, String pattern) {
+        return DatePattern.of(pattern).formatter().format(temporal);
+    }
+
+    /**
+     * @param pattern DateTimeFormatter的格式
+     * @return 按pattern缓存的DateTimeFormatter，不可变，可以在多个线程中共用
+     */
+    public static DateTimeFormatter getFormatter(String pattern) {
+        return DatePattern.of(pattern).formatter();
+    }
+
+    /**
+     * @param text    日期文本，必须完全符合pattern
+     * @param pattern DateTimeFormatter的格式
+     * @return 解析出的日期，格式不符时返回null
+     */
+    public static LocalDate parseLocalDate(CharSequence text, String pattern) {
+        try {
+            return LocalDate.parse(text, DatePattern.of(pattern).formatter());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param text    日期时间文本，必须完全符合pattern
+     * @param pattern DateTimeFormatter的格式
+     * @return 解析出的日期时间，格式不符时返回null
+     */
+    public static LocalDateTime parseLocalDateTime(CharSequence text, String pattern) {
+        try {
+            return LocalDateTime.parse(text, DatePattern.of(pattern).formatter());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
 
     /**
@@ -83,19 +148,18 @@ abstract public class DateUtils {
      * @param date
      * @return
      */
-    private static LocalDateTime date2LocalDateTime(Date date) {
-        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+    private static LocalDate date2LocalDate(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
     }
 
     /**
      * Please DO NOT make the modifier of this method to PUBLIC
      *
-     * @param localDate
+     * @param date
      * @return
      */
-    private static Date localDate2Date(LocalDate localDate) {
-        Instant instant = localDate.atStartOfDay(ZoneId.systemDefault()).toInstant();
-        return Date.from(instant);
+    private static LocalDateTime date2LocalDateTime(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
     }
 
 
@@ -104,7 +168,6 @@ abstract public class DateUtils {
      * @param date1 <String>
      * @param date2 <String>
      * @return int
-     * @throws ParseException
      */
     public static int getMonthDiff(Date start, Date end){
 
@@ -138,7 +201,7 @@ abstract public class DateUtils {
      * @return
      */
     public static long daysUtilNow(String text) {
-        return Instant.now().until(Instant.parse(text), ChronoUnit.DAYS);
+        return Instant.ofEpochMilli(businessClock.millis()).until(Instant.parse(text), ChronoUnit.DAYS);
     }
 
     /**
@@ -153,29 +216,27 @@ abstract public class DateUtils {
      * @return
      */
     public static long daysUntilCurrentDate(Date date) {
-        return date2LocalDate(date).until(LocalDate.now(), ChronoUnit.DAYS);
+        return currentEpochDay() - businessClock.toEpochDay(date.getTime());
     }
 
     public static long daysUntilCurrentDate(java.sql.Date date) {
-        return date.toLocalDate().until(LocalDate.now(), ChronoUnit.DAYS);
+        return currentEpochDay() - date.toLocalDate().toEpochDay();
     }
 
     public static boolean isAfterCurrentDate(Date date) {
-        return date2LocalDate(date).isAfter(LocalDate.now());
+        return businessClock.toEpochDay(date.getTime()) > currentEpochDay();
     }
 
     public static boolean isAfterCurrentDate(java.sql.Date date) {
-        return date.toLocalDate().isAfter(LocalDate.now());
+        return date.toLocalDate().toEpochDay() > currentEpochDay();
     }
 
     public static boolean isAfterCurrentDateTime(Date date) {
-        return date2LocalDateTime(date).isAfter(LocalDateTime.now());
+        return businessClock.toLocalMillis(date.getTime()) > businessClock.localMillis();
     }
 
     public static boolean isAfter(Date a, Date b) {
-        LocalDate locaDateA = date2LocalDate(a);
-        LocalDate locaDateB = date2LocalDate(b);
-        return locaDateA.isAfter(locaDateB);
+        return toEpochDay(a) > toEpochDay(b);
     }
 
     public static boolean isAfter(java.sql.Date a, Date b) {
@@ -189,21 +250,19 @@ abstract public class DateUtils {
     }
 
     public static boolean isBeforeCurrentDate(Date date) {
-        return date2LocalDate(date).isBefore(LocalDate.now());
+        return businessClock.toEpochDay(date.getTime()) < currentEpochDay();
     }
 
     public static boolean isBeforeCurrentDate(java.sql.Date date) {
-        return date.toLocalDate().isBefore(LocalDate.now());
+        return date.toLocalDate().toEpochDay() < currentEpochDay();
     }
 
     public static boolean isBeforeCurrentDateTime(Date date) {
-        return date2LocalDateTime(date).isBefore(LocalDateTime.now());
+        return businessClock.toLocalMillis(date.getTime()) < businessClock.localMillis();
     }
 
     public static boolean isBefore(Date a, Date b) {
-        LocalDate locaDateA = date2LocalDate(a);
-        LocalDate locaDateB = date2LocalDate(b);
-        return locaDateA.isBefore(locaDateB);
+        return toEpochDay(a) < toEpochDay(b);
     }
 
     public static boolean isBefore(java.sql.Date a, Date b) {
@@ -225,17 +284,15 @@ abstract public class DateUtils {
     }
 
     public static boolean isEqualsCurrentDate(Date date) {
-        return LocalDate.now().isEqual(date2LocalDate(date));
+        return currentEpochDay() == businessClock.toEpochDay(date.getTime());
     }
 
     public static boolean isEqual(Date a, Date b) {
-        LocalDate locaDateA = date2LocalDate(a);
-        LocalDate locaDateB = date2LocalDate(b);
-        return locaDateA.isEqual(locaDateB);
+        return toEpochDay(a) == toEpochDay(b);
     }
 
     public static DateFormat getDateFormat() {
-        return new SimpleDateFormat("yyyy-MM-dd");
+        return DatePattern.of("yyyy-MM-dd").newSimpleDateFormat();
     }
 
     public static DateFormat getChinaLongDateFormat() {
@@ -243,11 +300,62 @@ abstract public class DateUtils {
     }
 
     public static int getYear(Date date) {
-        return date2LocalDate(date).getYear();
+        return EpochDays.year(toEpochDay(date));
     }
 
     public static int getMonth(Date date) {
-        return date2LocalDate(date).getMonthValue();
+        return EpochDays.month(toEpochDay(date));
+    }
+
+    /**
+     * 毫秒数在默认时区的本地日期，同Date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay()，
+     * 时差按缓存的时区规则查表，不创建对象，适合在循环中大量调用
+     *
+     * @param epochMillis 毫秒数
+     * @return 距1970-01-01的天数
+     */
+    public static long toEpochDay(long epochMillis) {
+        return EpochDays.toEpochDay(epochMillis);
+    }
+
+    /**
+     * @param date 日期，也可以是java.sql.Date、Timestamp
+     * @return 在默认时区的本地日期距1970-01-01的天数
+     */
+    public static long toEpochDay(Date date) {
+        // java.sql.Date不支持toInstant，按毫秒数计算
+        return EpochDays.toEpochDay(date.getTime());
+    }
+
+    /**
+     * @return 今天距1970-01-01的天数，由业务时钟缓存，0点后第一次调用时刷新
+     */
+    public static long currentEpochDay() {
+        return businessClock.epochDay();
+    }
+
+    /**
+     * @param epochDay 距1970-01-01的天数
+     * @return 年份，同LocalDate.ofEpochDay(epochDay).getYear()
+     */
+    public static int yearOfEpochDay(long epochDay) {
+        return EpochDays.year(epochDay);
+    }
+
+    /**
+     * @param epochDay 距1970-01-01的天数
+     * @return 月份（1-12），同LocalDate.ofEpochDay(epochDay).getMonthValue()
+     */
+    public static int monthOfEpochDay(long epochDay) {
+        return EpochDays.month(epochDay);
+    }
+
+    /**
+     * @param epochDay 距1970-01-01的天数
+     * @return 日（1-31），同LocalDate.ofEpochDay(epochDay).getDayOfMonth()
+     */
+    public static int dayOfMonthOfEpochDay(long epochDay) {
+        return EpochDays.dayOfMonth(epochDay);
     }
 
     /**
@@ -323,12 +431,12 @@ abstract public class DateUtils {
      * @return
      */
     public static boolean isHoursAgo(Date targetDate, int hours) {
-        Instant hoursAgoInstant = Instant.now().minus(hours, ChronoUnit.HOURS);
-        return targetDate.toInstant().isBefore(hoursAgoInstant);
+        return targetDate.getTime() < businessClock.millis() - hours * 3600000L;
     }
 
     public static boolean isOutBussinessTime() {
-        return getCurrentHour() >= 0 && getCurrentHour() <= 6;
+        int hour = getCurrentHour();
+        return hour >= 0 && hour <= 6;
     }
 
     public static java.sql.Date date2SqlDate(Date date) {
@@ -354,15 +462,46 @@ abstract public class DateUtils {
         return org.apache.commons.lang.time.DateUtils.truncate(date, Calendar.DAY_OF_MONTH);
     }
 
+    /**
+     * 结果同SimpleDateFormat.parse，yyyyMMdd、yyyy-MM-dd、yyyy-MM-dd HH:mm:ss、yyMMddHHmmssSSS等定长格式逐字符解析，
+     * 格式不符时不抛异常，只在debug级别记录
+     *
+     * @return 解析出的日期，stringDate为null或格式不符时返回null
+     */
     public static Date parseDate(String stringDate, String format) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat(format);
-        try {
-            return dateFormat.parse(stringDate);
-        } catch (ParseException e) {
-            LOGGER.error("DateUtils.parseDate error", e);
+        long millis = parseEpochMillis(stringDate, format);
+        if (millis == INVALID_MILLIS) {
+            LOGGER.debug("DateUtils.parseDate error, text: {}, format: {}", stringDate, format);
+            return null;
+        }
+        return new Date(millis);
+    }
+
+    /**
+     * 按pattern解析日期，结果同SimpleDateFormat.parse，格式不符时返回INVALID_MILLIS，不抛异常也不记录日志，
+     * 适合导入等大批量解析的场景
+     *
+     * @param text    日期文本
+     * @param pattern SimpleDateFormat的格式
+     * @return 毫秒数，text为null或格式不符时返回INVALID_MILLIS
+     */
+    public static long parseEpochMillis(CharSequence text, String pattern) {
+        if (text == null) {
+            return INVALID_MILLIS;
         }
+        return DatePattern.of(pattern).parseMillis(text);
+    }
 
-        return null;
+    /**
+     * 同parseEpochMillis
+     *
+     * @param text    日期文本
+     * @param pattern SimpleDateFormat的格式
+     * @return 解析出的日期，text为null或格式不符时返回Optional.empty()
+     */
+    public static Optional<Date> tryParseDate(CharSequence text, String pattern) {
+        long millis = parseEpochMillis(text, pattern);
+        return millis == INVALID_MILLIS ? Optional.empty() : Optional.of(new Date(millis));
     }
 
     public static boolean isTimeBefore(Date a, Date b) {
@@ -402,21 +541,29 @@ abstract public class DateUtils {
      * @param smdate 较小的时间
      * @param bdate 较大的时间
      * @return 相差天数
-     * @throws ParseException
      */
     public static int daysBetween(Date smdate, Date bdate) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        try {
-            smdate = sdf.parse(sdf.format(smdate));
-            bdate = sdf.parse(sdf.format(bdate));
-        } catch (ParseException e) {
-            LOGGER.error("DateUtils.parseDate error", e);
+        return daysBetween(smdate.getTime(), bdate.getTime());
+    }
+
+    /**
+     * 同daysBetween(Date, Date)，不创建对象
+     *
+     * @param smMillis 较小的时间的毫秒数
+     * @param bMillis  较大的时间的毫秒数
+     * @return 相差天数
+     */
+    public static int daysBetween(long smMillis, long bMillis) {
+        // 两个日期都取当天0点，再按毫秒数相减（夏令时开始的那天不满24小时，按毫秒数相除会少算一天）
+        long days = EpochDays.daysBetween(smMillis, bMillis);
+        if (days != EpochDays.UNHANDLED) {
+            return Math.toIntExact(days);
         }
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(smdate);
-        long time1 = cal.getTimeInMillis();
-        cal.setTime(bdate);
-        long time2 = cal.getTimeInMillis();
+        Date smdate = new Date(smMillis);
+        Date bdate = new Date(bMillis);
+        DatePattern datePattern = DatePattern.of("yyyy-MM-dd");
+        long time1 = datePattern.parseMillis(datePattern.format(smdate));
+        long time2 = datePattern.parseMillis(datePattern.format(bdate));
         long between_days = (time2 - time1) / (1000 * 3600 * 24);
 
         return Integer.parseInt(String.valueOf(between_days));
@@ -470,7 +617,7 @@ abstract public class DateUtils {
             int endMonth=getMonth(end);
             int endDay=Integer.valueOf(getDay(end));
             if (startDay>endDay){ //1月17  大于 2月28
-                if (endDay==getDaysOfMonth(getYear(new Date()),2)){   //也满足一月
+                if (endDay==getDaysOfMonth(yearOfEpochDay(currentEpochDay()),2)){   //也满足一月
                     result=(endYear-startYear)*12+endMonth-startMonth;
                 }else{
                     result=(endYear-startYear)*12+endMonth-startMonth-1;
@@ -480,4 +627,67 @@ abstract public class DateUtils {
             }
         return result;
     }
+
+    /**
+     * 批量plusDays，out[i] = millis[i] + days天，out可以就是millis
+     *
+     * @param millis   毫秒数
+     * @param days     天数，可以为负数
+     * @param out      结果，长度不小于millis
+     * @param parallel 数组较大时是否分块并行计算
+     */
+    public static void plusDays(long[] millis, int days, long[] out, boolean parallel) {
+        DateArrays.plusDays(millis, days, out, parallel);
+    }
+
+    /**
+     * 批量plusDays，输入输出都是epoch day（距1970-01-01的天数），out可以就是epochDays
+     */
+    public static void plusDays(int[] epochDays, int days, int[] out, boolean parallel) {
+        DateArrays.plusDays(epochDays, days, out, parallel);
+    }
+
+    /**
+     * 批量durationInDays，out[i] = startMillis[i] - endMillis[i]相差的整天数（不足一天的部分舍去）
+     */
+    public static void durationInDays(long[] startMillis, long[] endMillis, int[] out, boolean parallel) {
+        DateArrays.durationInDays(startMillis, endMillis, out, parallel);
+    }
+
+    /**
+     * 批量durationInDays，输入为epoch day，out[i] = startDays[i] - endDays[i]
+     */
+    public static void durationInDays(int[] startDays, int[] endDays, int[] out, boolean parallel) {
+        DateArrays.durationInDays(startDays, endDays, out, parallel);
+    }
+
+    /**
+     * 批量calDiffMonth，结果同calDiffMonth(Date, Date)，当年2月的天数每批只取一次
+     */
+    public static void calDiffMonth(long[] startMillis, long[] endMillis, int[] out, boolean parallel) {
+        DateArrays.calDiffMonth(startMillis, endMillis, out, parallel);
+    }
+
+    /**
+     * 批量calDiffMonth，输入为epoch day，按这些日期的年月日计算，规则同calDiffMonth(Date, Date)
+     */
+    public static void calDiffMonth(int[] startDays, int[] endDays, int[] out, boolean parallel) {
+        DateArrays.calDiffMonth(startDays, endDays, out, parallel);
+    }
+
+    /**
+     * 批量isDateTimeBetween，out[i] = targetMillis[i]是否在startMillis和endMillis中间（不含两端）
+     */
+    public static void isDateTimeBetween(long[] targetMillis, long startMillis, long endMillis, boolean[] out,
+            boolean parallel) {
+        DateArrays.isDateTimeBetween(targetMillis, startMillis, endMillis, out, parallel);
+    }
+
+    /**
+     * 批量isDateTimeBetween，每个元素有自己的开始、结束时间
+     */
+    public static void isDateTimeBetween(long[] targetMillis, long[] startMillis, long[] endMillis, boolean[] out,
+            boolean parallel) {
+        DateArrays.isDateTimeBetween(targetMillis, startMillis, endMillis, out, parallel);
+    }
 }
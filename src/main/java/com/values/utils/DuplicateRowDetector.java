@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 按业务主键组合（复合主键）查找重复行。每行只做一次哈希查找，一次遍历即可找出所有重复行
+ */
+final class DuplicateRowDetector {
+    /**
+     * 组合键各部分之间的分隔符，正常的单元格内容中不会出现
+     */
+    private static final char SEPARATOR = '\u0001';
+
+    private final Map<String, Integer> firstRows = new HashMap<>();
+    private final Map<String, List<Integer>> duplicates = new LinkedHashMap<>();
+
+    /**
+     * @param keyParts 本行业务主键各列的内容，去掉首尾空格后比较（同转换对象时的单元格内容），null同空字符串
+     * @param rowNo    行号，用于提示
+     * @return 本行是否与之前的行重复
+     */
+    boolean add(String[] keyParts, int rowNo) {
+        String key = keyParts.length == 1 ? normalize(keyParts[0]) : join(keyParts);
+        Integer firstRow = firstRows.putIfAbsent(key, rowNo);
+        if (firstRow == null) {
+            return false;
+        }
+        List<Integer> rows = duplicates.get(key);
+        if (rows == null) {
+            rows = new ArrayList<>(2);
+            rows.add(firstRow);
+            duplicates.put(key, rows);
+        }
+        rows.add(rowNo);
+        return true;
+    }
+
+    boolean hasDuplicates() {
+        return !duplicates.isEmpty();
+    }
+
+    /**
+     * @return 重复的组合键（各部分以\u0001分隔）和出现的行号
+     */
+    Map<String, List<Integer>> getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return 所有重复行的提示，如：第2、5行重复；第3、9、10行重复
+     */
+    String getMessage() {
+        StringBuilder message = new StringBuilder();
+        for (List<Integer> rows : duplicates.values()) {
+            if (message.length() > 0) {
+                message.append('；');
+            }
+            message.append('第');
+            for (int i = 0; i < rows.size(); i++) {
+                if (i > 0) {
+                    message.append('、');
+                }
+                message.append(rows.get(i));
+            }
+            message.append("行重复");
+        }
+        return message.toString();
+    }
+
+    private static String join(String[] keyParts) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < keyParts.length; i++) {
+            if (i > 0) {
+                key.append(SEPARATOR);
+            }
+            key.append(normalize(keyParts[i]));
+        }
+        return key.toString();
+    }
+
+    private static String normalize(String keyPart) {
+        return keyPart == null ? "" : keyPart.trim();
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved.
+ * WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+package com.values.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * @Description 按毫秒数和epoch day（距1970-01-01的天数）计算本地日期，不创建对象。
+ * 默认时区的时差按时区规则预先展开为切换时刻表，二分查找，结果同Date.toInstant().atZone(ZoneId.systemDefault())；
+ * 默认时区每秒最多检查一次，被TimeZone.setDefault修改后最多1秒生效
+ */
+final class EpochDays {
+    static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * 失败时的返回值，由调用方改用原来的算法
+     */
+    static final long UNHANDLED = FastDateParser.UNHANDLED;
+
+    private static final long DAYS_0000_TO_1970 = 719528L;
+    private static final long DAYS_PER_CYCLE = 146097L;
+
+    /**
+     * 1583-01-01T00:00:00Z，此前SimpleDateFormat按儒略历计算
+     */
+    private static final long GREGORIAN_MILLIS = -12212553600000L;
+
+    /**
+     * 9999-01-01T00:00:00Z
+     */
+    private static final long MAX_FORMAT_MILLIS = 253370764800000L;
+
+    private static final long CHECK_INTERVAL_MILLIS = 1000L;
+
+    private static volatile Zone zone;
+
+    private EpochDays() {
+    }
+
+    /**
+     * @return 毫秒数在默认时区的本地日期
+     */
+    static long toEpochDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + zone().offset(epochMillis), MILLIS_PER_DAY);
+    }
+
+    static int year(long epochDay) {
+        return (int) (yearMonthDay(epochDay) >> 9);
+    }
+
+    static int month(long epochDay) {
+        return (int) (yearMonthDay(epochDay) >> 5) & 0xF;
+    }
+
+    static int dayOfMonth(long epochDay) {
+        return (int) yearMonthDay(epochDay) & 0x1F;
+    }
+
+    /**
+     * 同LocalDate.ofEpochDay
+     *
+     * @return year << 9 | month << 5 | day
+     */
+    static long yearMonthDay(long epochDay) {
+        long zeroDay = epochDay + DAYS_0000_TO_1970;
+        // 从3月1日开始算一年，闰日在年末
+        zeroDay -= 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long yearEst = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        return yearEst << 9 | month << 5 | day;
+    }
+
+    /**
+     * 按SimpleDateFormat（TimeZone）计算两个时间所在日期0点之间的天数，同DateUtils.daysBetween原来的格式化再解析
+     *
+     * @return 天数，1583年以前、9999年以后或0点因夏令时不存在、重复时返回UNHANDLED
+     */
+    static long daysBetween(long startMillis, long endMillis) {
+        TimeZone timeZone = zone().timeZone;
+        long start = legacyStartOfDay(startMillis, timeZone);
+        long end = legacyStartOfDay(endMillis, timeZone);
+        if (start == UNHANDLED || end == UNHANDLED) {
+            return UNHANDLED;
+        }
+        return (end - start) / MILLIS_PER_DAY;
+    }
+
+    private static long legacyStartOfDay(long epochMillis, TimeZone timeZone) {
+        if (epochMillis < GREGORIAN_MILLIS || epochMillis >= MAX_FORMAT_MILLIS) {
+            return UNHANDLED;
+        }
+        long localMidnight = Math.floorDiv(epochMillis + timeZone.getOffset(epochMillis), MILLIS_PER_DAY) * MILLIS_PER_DAY;
+        return FastDateParser.localToEpochMillis(localMidnight, timeZone);
+    }
+
+    /**
+     * @return 默认时区的时差表，批量计算时每批取一次
+     */
+    static Zone zone() {
+        Zone current = zone;
+        long now = System.currentTimeMillis();
+        if (current == null || now >= current.checkUntil) {
+            TimeZone timeZone = TimeZone.getDefault();
+            if (current == null || !current.timeZone.hasSameRules(timeZone) || !current.id.equals(timeZone.getID())) {
+                current = new Zone(timeZone);
+                zone = current;
+            }
+            current.checkUntil = now + CHECK_INTERVAL_MILLIS;
+        }
+        return current;
+    }
+
+    /**
+     * @return zoneId的时差表，与默认时区相同时复用默认时区的表
+     */
+    static Zone zone(ZoneId zoneId) {
+        Zone current = zone();
+        return current.id.equals(zoneId.getId()) ? current : new Zone(TimeZone.getTimeZone(zoneId));
+    }
+
+    /**
+     * 一个时区的时差表，1850年到2150年之间查表，范围外直接用ZoneRules
+     */
+    static final class Zone {
+        private static final long TABLE_START = -3786825600000L;
+        private static final long TABLE_END = 5680281600000L;
+
+        private final String id;
+        /**
+         * TimeZone.getDefault()返回的副本，不会被修改，TimeZone.getOffset可以多线程调用
+         */
+        private final TimeZone timeZone;
+        private final ZoneRules rules;
+        /**
+         * 时差切换的时刻，offsets[i]是transitions[i]之前的时差，最后一个是最后一次切换之后的时差
+         */
+        private final long[] transitions;
+        private final int[] offsets;
+        private volatile long checkUntil;
+
+        Zone(TimeZone timeZone) {
+            this.id = timeZone.getID();
+            this.timeZone = timeZone;
+            this.rules = timeZone.toZoneId().getRules();
+            long[] times = new long[16];
+            int[] values = new int[17];
+            int count = 0;
+            values[0] = rules.getOffset(Instant.ofEpochMilli(TABLE_START)).getTotalSeconds() * 1000;
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(TABLE_START));
+            while (transition != null && transition.toEpochSecond() * 1000 < TABLE_END) {
+                if (count == times.length) {
+                    times = Arrays.copyOf(times, count * 2);
+                    values = Arrays.copyOf(values, count * 2 + 1);
+                }
+                times[count] = transition.toEpochSecond() * 1000;
+                values[count + 1] = transition.getOffsetAfter().getTotalSeconds() * 1000;
+                count++;
+                transition = rules.nextTransition(transition.getInstant());
+            }
+            this.transitions = Arrays.copyOf(times, count);
+            this.offsets = Arrays.copyOf(values, count + 1);
+        }
+
+        /**
+         * @return 同ZoneRules.getOffset的毫秒数
+         */
+        int offset(long epochMillis) {
+            if (transitions.length == 0 && rules.isFixedOffset()) {
+                return offsets[0];
+            }
+            if (epochMillis < TABLE_START || epochMillis >= TABLE_END) {
+                ZoneOffset offset = rules.getOffset(Instant.ofEpochMilli(epochMillis));
+                return offset.getTotalSeconds() * 1000;
+            }
+            int index = Arrays.binarySearch(transitions, epochMillis);
+            // 恰好是切换时刻时取切换后的时差
+            return offsets[index >= 0 ? index + 1 : -index - 1];
+        }
+
+        /**
+         * @return 按TimeZone（Calendar、SimpleDateFormat使用）计算的本地日期，1583年以前（儒略历）返回UNHANDLED
+         */
+        long legacyEpochDay(long epochMillis) {
+            if (epochMillis < GREGORIAN_MILLIS) {
+                return UNHANDLED;
+            }
+            return Math.floorDiv(epochMillis + timeZone.getOffset(epochMillis), MILLIS_PER_DAY);
+        }
+    }
+}
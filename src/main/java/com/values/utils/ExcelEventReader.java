@@ -0,0 +1,627 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleFunction;
+import java.util.function.IntFunction;
+
+/**
+ * @Description 基于事件模型流式读取Excel，不在内存中构建整个工作簿。
+ * .xlsx用XSSFReader加SAX逐行解析工作表XML，.xls用HSSFEventFactory逐条处理记录，每读完一行回调一次
+ */
+final class ExcelEventReader {
+
+    private ExcelEventReader() {
+    }
+
+    /**
+     * 读取.xlsx的一个工作表，用于导入：日期格式的数字单元格输出日期文本，同jxl单元格的内容
+     *
+     * @param sheetName      工作表名称，为null时读取第一个工作表；找不到时不回调
+     * @param numberRenderer 其余数字单元格的输出规则
+     */
+    static void readXlsx(InputStream is, String sheetName, DoubleFunction<Object> numberRenderer,
+                         ExcelRowVisitor handler) throws Exception {
+        readXlsx(is, numberRenderer, false, true, selectOne(sheetName, handler), null);
+    }
+
+    /**
+     * 读取.xlsx中选中的工作表。输入流先落到临时文件，避免OPCPackage把整个压缩包读进内存；
+     * 设置了线程池时，各工作表在线程池中同时解析
+     *
+     * @param numberRenderer 数字单元格的输出规则
+     * @param formulaResults 公式单元格是否返回缓存的计算结果，为false时返回公式文本
+     * @param sheetHandler   选择工作表和行回调
+     * @param executor       解析工作表的线程池，为null时在当前线程依次解析
+     */
+    static void readXlsx(InputStream is, DoubleFunction<Object> numberRenderer, boolean formulaResults,
+                         ExcelSheetHandler sheetHandler, Executor executor) throws Exception {
+        readXlsx(is, numberRenderer, formulaResults, false, sheetHandler, executor);
+    }
+
+    /**
+     * @param dates 日期格式的数字单元格是否输出日期文本，为false时同其他数字按numberRenderer输出
+     */
+    private static void readXlsx(InputStream is, DoubleFunction<Object> numberRenderer, boolean formulaResults,
+                                 boolean dates, ExcelSheetHandler sheetHandler, Executor executor) throws Exception {
+        Path tmp = Files.createTempFile("excel-import", ExcelUtils.Postfix.XLSX.getValue());
+        try {
+            Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+            OPCPackage pkg = OPCPackage.open(tmp.toString(), PackageAccess.READ);
+            List<InputStream> opened = new ArrayList<>();
+            List<CompletableFuture<Void>> parsing = new ArrayList<>();
+            AtomicBoolean aborted = new AtomicBoolean();
+            try {
+                XSSFReader reader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable sst = new ReadOnlySharedStringsTable(pkg);
+                StylesTable styles = dates ? reader.getStylesTable() : null;
+                XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+                int sheetIndex = 0;
+                while (sheets.hasNext()) {
+                    InputStream sheet = sheets.next();
+                    opened.add(sheet);
+                    // 未选中的工作表只打开不解析
+                    ExcelRowVisitor handler = sheetHandler.begin(sheetIndex++, sheets.getSheetName());
+                    if (handler == null) {
+                        sheet.close();
+                        continue;
+                    }
+                    XlsxSheetHandler xmlHandler = new XlsxSheetHandler(sst, numberRenderer, formulaResults,
+                            styles == null ? null : new CellDates(style -> styleFormat(styles, style)), handler);
+                    if (executor == null) {
+                        parseSheet(sheet, xmlHandler);
+                        sheet.close();
+                    } else {
+                        parsing.add(CompletableFuture.runAsync(() -> {
+                            if (aborted.get()) {
+                                return;
+                            }
+                            try {
+                                parseSheet(sheet, xmlHandler);
+                            } catch (Exception e) {
+                                aborted.set(true);
+                                throw new CompletionException(e);
+                            }
+                        }, executor));
+                    }
+                }
+                awaitAll(parsing);
+            } finally {
+                // 出错时还没开始的工作表不再解析，等正在解析的结束后再关闭文件
+                aborted.set(true);
+                for (CompletableFuture<Void> future : parsing) {
+                    try {
+                        future.join();
+                    } catch (CompletionException | CancellationException ignored) {
+                        // 异常已由awaitAll或上面的循环抛出
+                    }
+                }
+                for (InputStream sheet : opened) {
+                    sheet.close();
+                }
+                // 只读打开，放弃修改即可关闭
+                pkg.revert();
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 等待所有工作表解析完，有失败时抛出第一个失败的工作表的异常
+     */
+    private static void awaitAll(List<CompletableFuture<Void>> parsing) throws Exception {
+        Exception failure = null;
+        for (CompletableFuture<Void> future : parsing) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 读取.xls的一个工作表，用于导入：日期格式的数字单元格输出日期文本，同jxl单元格的内容
+     *
+     * @param sheetName      工作表名称，为null时读取第一个工作表；找不到时不回调
+     * @param numberRenderer 其余数字单元格的输出规则
+     */
+    static void readXls(InputStream is, String sheetName, DoubleFunction<Object> numberRenderer,
+                        ExcelRowVisitor handler) throws Exception {
+        readXls(is, numberRenderer, false, true, selectOne(sheetName, handler));
+    }
+
+    /**
+     * 读取.xls中选中的工作表。记录流只能从头到尾读一遍，各工作表按顺序在当前线程回调，
+     * 未选中的工作表的记录直接跳过
+     *
+     * @param numberRenderer 数字单元格的输出规则
+     * @param formulaResults 公式单元格是否返回缓存的计算结果，为false时返回公式文本
+     * @param sheetHandler   选择工作表和行回调
+     */
+    static void readXls(InputStream is, DoubleFunction<Object> numberRenderer, boolean formulaResults,
+                        ExcelSheetHandler sheetHandler) throws Exception {
+        readXls(is, numberRenderer, formulaResults, false, sheetHandler);
+    }
+
+    /**
+     * @param dates 日期格式的数字单元格是否输出日期文本，为false时同其他数字按numberRenderer输出
+     */
+    private static void readXls(InputStream is, DoubleFunction<Object> numberRenderer, boolean formulaResults,
+                                boolean dates, ExcelSheetHandler sheetHandler) throws Exception {
+        XlsSheetListener listener = new XlsSheetListener(sheetHandler, numberRenderer, formulaResults);
+        SheetRecordCollectingListener workbookListener;
+        if (dates) {
+            // 单元格记录只有样式下标，由FormatTrackingHSSFListener收集工作簿中的格式
+            FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(listener);
+            listener.formatListener = formatListener;
+            listener.dates = new CellDates(formatIndex -> new CellFormat(formatIndex,
+                    formatIndex < 0 ? null : formatListener.getFormatString(formatIndex)));
+            workbookListener = new SheetRecordCollectingListener(formatListener);
+        } else {
+            workbookListener = new SheetRecordCollectingListener(listener);
+        }
+        listener.workbookListener = workbookListener;
+
+        HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(workbookListener);
+        new HSSFEventFactory().processWorkbookEvents(request, new POIFSFileSystem(is));
+
+        if (listener.failure != null) {
+            throw listener.failure;
+        }
+    }
+
+    /**
+     * @return 只选择一个工作表：名称为null时选择第一个
+     */
+    static ExcelSheetHandler selectOne(String sheetName, ExcelRowVisitor handler) {
+        return (sheetIndex, name) -> (sheetName == null ? sheetIndex == 0 : sheetName.equals(name)) ? handler : null;
+    }
+
+    private static CellFormat styleFormat(StylesTable styles, int style) {
+        XSSFCellStyle cellStyle = styles.getStyleAt(style);
+        return new CellFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+    }
+
+    private static void parseSheet(InputStream sheet, XlsxSheetHandler sheetHandler) throws Exception {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        // 工作表XML不需要DTD，禁用以防XXE
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(sheetHandler);
+        try {
+            xmlReader.parse(new InputSource(sheet));
+        } catch (SAXException e) {
+            if (e.getException() != null) {
+                // 回调中抛出的异常原样抛出
+                throw e.getException();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param ref 单元格引用，如B12
+     * @return 从0开始的列号
+     */
+    private static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * 解析工作表XML：row/c/v/f/is元素。单元格的值：数字按numberRenderer输出，字符串去掉首尾空格，
+     * 布尔值为Boolean，公式为公式文本（或缓存的计算结果），空值和错误为空字符串
+     */
+    private static class XlsxSheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sst;
+        private final DoubleFunction<Object> numberRenderer;
+        private final boolean formulaResults;
+        private final CellDates dates;
+        private final ExcelRowVisitor handler;
+        private final StringBuilder text = new StringBuilder();
+        private final ExcelRow row = new ExcelRow();
+
+        private int rowNum = -1;
+        private int column;
+        private String cellType;
+        private int style;
+        private String value;
+        private String formula;
+        private boolean inCell;
+        private boolean capturing;
+
+        XlsxSheetHandler(ReadOnlySharedStringsTable sst, DoubleFunction<Object> numberRenderer,
+                         boolean formulaResults, CellDates dates, ExcelRowVisitor handler) {
+            this.sst = sst;
+            this.numberRenderer = numberRenderer;
+            this.formulaResults = formulaResults;
+            this.dates = dates;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+                    row.reset(rowNum);
+                    column = -1;
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    column = ref == null ? column + 1 : columnIndex(ref);
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    style = s == null ? 0 : Integer.parseInt(s);
+                    value = null;
+                    formula = null;
+                    inCell = true;
+                    text.setLength(0);
+                    break;
+                case "v":
+                case "f":
+                    text.setLength(0);
+                    capturing = true;
+                    break;
+                case "t":
+                    // 内联字符串的文本可能分成多段，依次拼接
+                    capturing = inCell;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                    value = text.toString();
+                    capturing = false;
+                    break;
+                case "f":
+                    formula = text.toString();
+                    capturing = false;
+                    break;
+                case "t":
+                    capturing = false;
+                    break;
+                case "is":
+                    value = text.toString();
+                    break;
+                case "c":
+                    row.set(column, cellValue());
+                    inCell = false;
+                    break;
+                case "row":
+                    try {
+                        handler.visit(row);
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private Object cellValue() {
+            // 共享公式的从属单元格没有公式文本，取缓存的计算结果
+            if (!formulaResults && formula != null && !formula.isEmpty()) {
+                return formula;
+            }
+            if (value == null) {
+                return "";
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                double number = Double.parseDouble(value);
+                return dates == null ? numberRenderer.apply(number) : dates.render(number, style, numberRenderer);
+            }
+            switch (cellType) {
+                case "s":
+                    return sst.getEntryAt(Integer.parseInt(value)).trim();
+                case "inlineStr":
+                case "str":
+                    return value.trim();
+                case "b":
+                    return "1".equals(value);
+                default:
+                    // e：错误
+                    return "";
+            }
+        }
+    }
+
+    /**
+     * 处理.xls记录，只读取选中的工作表。单元格记录在工作表中按行排列，行号变化时回调上一行
+     */
+    private static class XlsSheetListener implements HSSFListener {
+        private final ExcelSheetHandler sheetHandler;
+        private final DoubleFunction<Object> numberRenderer;
+        private final boolean formulaResults;
+        private ExcelRowVisitor handler;
+        private SheetRecordCollectingListener workbookListener;
+        private FormatTrackingHSSFListener formatListener;
+        private CellDates dates;
+        private BoundSheetRecord[] boundSheets;
+        private SSTRecord sst;
+        private int depth;
+        private int sheetIndex = -1;
+        private boolean inSheet;
+        private boolean done;
+        private Exception failure;
+
+        private final ExcelRow row = new ExcelRow();
+        private FormulaRecord stringFormula;
+        private boolean hasRow;
+        private int rowNum = -1;
+
+        XlsSheetListener(ExcelSheetHandler sheetHandler, DoubleFunction<Object> numberRenderer,
+                         boolean formulaResults) {
+            this.sheetHandler = sheetHandler;
+            this.numberRenderer = numberRenderer;
+            this.formulaResults = formulaResults;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (done) {
+                return;
+            }
+            try {
+                process(record);
+            } catch (Exception e) {
+                failure = e;
+                done = true;
+            }
+        }
+
+        private void process(Record record) throws Exception {
+            switch (record.getSid()) {
+                case BOFRecord.sid:
+                    // 工作表中嵌入的图表等也有BOF/EOF，按层级区分
+                    depth++;
+                    if (depth == 1 && ((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                        sheetIndex++;
+                        handler = sheetHandler.begin(sheetIndex, sheetName(sheetIndex));
+                        inSheet = handler != null;
+                    }
+                    break;
+                case EOFRecord.sid:
+                    depth--;
+                    if (inSheet && depth == 0) {
+                        flushRow();
+                        inSheet = false;
+                        rowNum = -1;
+                    }
+                    break;
+                case SSTRecord.sid:
+                    sst = (SSTRecord) record;
+                    break;
+                default:
+                    if (inSheet && depth == 1) {
+                        processCell(record);
+                    }
+                    break;
+            }
+        }
+
+        private String sheetName(int index) {
+            if (boundSheets == null) {
+                // 工作簿全局记录在所有工作表之前，此时工作表名称已收集完
+                boundSheets = BoundSheetRecord.orderByBofPosition(
+                        Arrays.asList(workbookListener.getBoundSheetRecords()));
+            }
+            return index < boundSheets.length ? boundSheets[index].getSheetname() : null;
+        }
+
+        private void processCell(Record record) throws Exception {
+            switch (record.getSid()) {
+                case NumberRecord.sid:
+                    NumberRecord number = (NumberRecord) record;
+                    put(number.getRow(), number.getColumn(), number(number.getValue(), number));
+                    break;
+                case LabelSSTRecord.sid:
+                    LabelSSTRecord label = (LabelSSTRecord) record;
+                    put(label.getRow(), label.getColumn(), sst.getString(label.getSSTIndex()).getString().trim());
+                    break;
+                case LabelRecord.sid:
+                    LabelRecord oldLabel = (LabelRecord) record;
+                    put(oldLabel.getRow(), oldLabel.getColumn(), oldLabel.getValue().trim());
+                    break;
+                case BoolErrRecord.sid:
+                    BoolErrRecord boolErr = (BoolErrRecord) record;
+                    put(boolErr.getRow(), boolErr.getColumn(),
+                            boolErr.isBoolean() ? (Object) boolErr.getBooleanValue() : "");
+                    break;
+                case FormulaRecord.sid:
+                    FormulaRecord formula = (FormulaRecord) record;
+                    if (!formulaResults) {
+                        put(formula.getRow(), formula.getColumn(), HSSFFormulaParser.toFormulaString(
+                                workbookListener.getStubHSSFWorkbook(), formula.getParsedExpression()));
+                    } else if (formula.hasCachedResultString()) {
+                        // 文本结果在紧跟着的StringRecord中
+                        stringFormula = formula;
+                    } else {
+                        put(formula.getRow(), formula.getColumn(), cachedResult(formula));
+                    }
+                    break;
+                case StringRecord.sid:
+                    if (stringFormula != null) {
+                        put(stringFormula.getRow(), stringFormula.getColumn(),
+                                ((StringRecord) record).getString().trim());
+                        stringFormula = null;
+                    }
+                    break;
+                case BlankRecord.sid:
+                    BlankRecord blank = (BlankRecord) record;
+                    put(blank.getRow(), blank.getColumn(), "");
+                    break;
+                case MulBlankRecord.sid:
+                    MulBlankRecord mulBlank = (MulBlankRecord) record;
+                    for (int i = 0; i < mulBlank.getNumColumns(); i++) {
+                        put(mulBlank.getRow(), mulBlank.getFirstColumn() + i, "");
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private Object cachedResult(FormulaRecord formula) {
+            switch (formula.getCachedResultType()) {
+                case Cell.CELL_TYPE_NUMERIC:
+                    return number(formula.getValue(), formula);
+                case Cell.CELL_TYPE_BOOLEAN:
+                    return formula.getCachedBooleanValue();
+                default:
+                    // 空文本和错误
+                    return "";
+            }
+        }
+
+        private Object number(double value, CellValueRecordInterface cell) {
+            if (dates == null) {
+                return numberRenderer.apply(value);
+            }
+            return dates.render(value, formatListener.getFormatIndex(cell), numberRenderer);
+        }
+
+        private void put(int cellRow, int column, Object value) throws Exception {
+            if (cellRow != rowNum) {
+                flushRow();
+                rowNum = cellRow;
+                row.reset(cellRow);
+                hasRow = true;
+            }
+            row.set(column, value);
+        }
+
+        private void flushRow() throws Exception {
+            if (hasRow) {
+                handler.visit(row);
+                hasRow = false;
+            }
+        }
+    }
+
+    /**
+     * 导入时日期格式的数字单元格按单元格格式输出日期文本，同jxl单元格的内容（如yyyy-mm-dd格式输出2017-01-02），
+     * 其余数字按numberRenderer输出。每种样式（.xls为格式下标）只查找、判断一次格式，不是线程安全的，每个工作表一个
+     */
+    private static final class CellDates {
+        private final DataFormatter formatter = new DataFormatter();
+        private final IntFunction<CellFormat> lookup;
+        private final Map<Integer, CellFormat> formats = new HashMap<>();
+
+        CellDates(IntFunction<CellFormat> lookup) {
+            this.lookup = lookup;
+        }
+
+        Object render(double value, int style, DoubleFunction<Object> numberRenderer) {
+            CellFormat format = formats.get(style);
+            if (format == null) {
+                format = lookup.apply(style);
+                formats.put(style, format);
+            }
+            if (!format.date) {
+                return numberRenderer.apply(value);
+            }
+            return formatter.formatRawCellContents(value, format.index, format.pattern);
+        }
+    }
+
+    /**
+     * 单元格的数字格式
+     */
+    private static final class CellFormat {
+        private final int index;
+        private final String pattern;
+        private final boolean date;
+
+        CellFormat(int index, String pattern) {
+            this.index = index;
+            this.pattern = pattern;
+            this.date = pattern != null && DateUtil.isADateFormat(index, pattern);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description 后台导出任务的状态和进度，由ExcelExportJobs创建，可以在任何线程读取
+ */
+public class ExcelExportJob {
+
+    public enum Status {
+        /**
+         * 排队中
+         */
+        QUEUED,
+        /**
+         * 导出中
+         */
+        RUNNING,
+        /**
+         * 已完成，可以下载
+         */
+        DONE,
+        /**
+         * 导出失败
+         */
+        FAILED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final long totalRows;
+    private final long createTime = System.currentTimeMillis();
+    private final AtomicLong writtenRows = new AtomicLong();
+    private volatile Status status = Status.QUEUED;
+    private volatile String errorMessage;
+    private volatile long finishTime;
+    private volatile File file;
+    /**
+     * 正在下载的次数和任务是否已删除，文件在删除后、没有下载时才删除，由this同步
+     */
+    private int downloads;
+    private boolean removed;
+
+    ExcelExportJob(String id, String fileName, long totalRows) {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalRows = totalRows;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return 下载时的文件名，含扩展名
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return 总行数，未知时为-1
+     */
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * @return 已从数据源取出并写入的行数
+     */
+    public long getWrittenRows() {
+        return writtenRows.get();
+    }
+
+    /**
+     * @return 进度百分比0~100，总行数未知时导出中为-1
+     */
+    public int getProgress() {
+        if (status == Status.DONE) {
+            return 100;
+        }
+        if (totalRows <= 0) {
+            return status == Status.QUEUED ? 0 : -1;
+        }
+        // 写完数据后还要生成文件，完成前最多显示99
+        return (int) Math.min(99, writtenRows.get() * 100 / totalRows);
+    }
+
+    /**
+     * @return 失败原因，未失败时为null
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    /**
+     * @return 完成或失败的时间，未结束时为0
+     */
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    void addWrittenRows(long rows) {
+        writtenRows.addAndGet(rows);
+    }
+
+    void running(File file) {
+        this.file = file;
+        this.status = Status.RUNNING;
+    }
+
+    void done() {
+        this.finishTime = System.currentTimeMillis();
+        this.status = Status.DONE;
+    }
+
+    void failed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.finishTime = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+
+    /**
+     * @return 开始一次下载，任务已删除时返回false
+     */
+    synchronized boolean startDownload() {
+        if (removed) {
+            return false;
+        }
+        downloads++;
+        return true;
+    }
+
+    /**
+     * @return 结束一次下载，任务已删除且没有其他下载时返回true，由调用方删除文件
+     */
+    synchronized boolean endDownload() {
+        downloads--;
+        return removed && downloads == 0;
+    }
+
+    /**
+     * @return 标记任务已删除，没有正在进行的下载时返回true，由调用方删除文件；否则由最后一个下载删除
+     */
+    synchronized boolean remove() {
+        removed = true;
+        return downloads == 0;
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description 后台导出任务。导出在有界线程池中执行，先写到临时文件，请求线程只负责提交任务、查询进度和下载，
+ * 不会因为大报表长时间占用Servlet线程。下载时在请求线程中把文件写到响应流，正在下载的文件不会被删除。
+ * 过期的任务和文件由一个后台线程每隔保留时间的一半清理一次，没有新任务提交时也会清理。
+ * 一般作为单例（如Spring Bean）使用，应用关闭时调用shutdown
+ */
+public class ExcelExportJobs {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExcelExportJobs.class);
+
+    /**
+     * 导出任务，把文件写到out中
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+        /**
+         * @param out 临时文件的输出流，由调用方关闭
+         * @param job 当前任务，用于按需更新进度
+         */
+        void export(OutputStream out, ExcelExportJob job) throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService sweeper;
+    private final File spoolDir;
+    private final long retentionMillis;
+    private final Map<String, ExcelExportJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 2个导出线程，最多排队20个任务，文件保留1小时，写到系统临时目录
+     */
+    public ExcelExportJobs() {
+        this(2, 20, null, TimeUnit.HOURS.toMillis(1));
+    }
+
+    /**
+     * @param threads         同时导出的任务数
+     * @param queueCapacity   排队任务数的上限，超出时拒绝提交
+     * @param spoolDir        临时文件目录，为null时使用系统临时目录
+     * @param retentionMillis 任务结束后保留的时间，超时后删除文件，最长再过retentionMillis / 2后清理
+     */
+    public ExcelExportJobs(int threads, int queueCapacity, File spoolDir, long retentionMillis) {
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "excel-export-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.spoolDir = spoolDir;
+        this.retentionMillis = retentionMillis;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "excel-export-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, retentionMillis / 2);
+        this.sweeper.scheduleWithFixedDelay(this::removeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param fileName 下载时的文件名，含扩展名
+     * @param task     导出任务
+     * @return 任务，用getId()查询进度和下载
+     * @throws Exception 排队的任务已满
+     * @MethodName : submit
+     * @Description : 提交导出任务
+     */
+    public ExcelExportJob submit(String fileName, ExportTask task) throws Exception {
+        return submit(fileName, -1, task);
+    }
+
+    /**
+     * @param rows      数据源，在导出线程中读取，所以不能依赖请求线程的资源（如请求范围的事务）
+     * @param totalRows 总行数，用于计算进度，未知时为-1
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param options   导出参数，为null时使用默认值
+     * @return 任务
+     * @throws Exception 排队的任务已满
+     * @MethodName : submitXlsx
+     * @Description : 提交2007格式的流式导出任务，按从数据源取出的行数更新进度
+     */
+    public <T> ExcelExportJob submitXlsx(Iterator<T> rows, long totalRows, LinkedHashMap<String, String> fieldMap,
+                                         String sheetName, ExcelExportOptions options) throws Exception {
+        String fileName = sheetName + ExcelUtils.Postfix.XLSX.getValue();
+        return submit(fileName, totalRows, (out, job) ->
+                ExcelUtils.iteratorToXlsx(new CountingIterator<>(rows, job), fieldMap, sheetName, options, out));
+    }
+
+    private ExcelExportJob submit(String fileName, long totalRows, ExportTask task) throws Exception {
+        removeExpired();
+        ExcelExportJob job = new ExcelExportJob(UUID.randomUUID().toString().replace("-", ""), fileName, totalRows);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new Exception("导出任务过多，请稍后再试");
+        }
+        return job;
+    }
+
+    private void run(ExcelExportJob job, ExportTask task) {
+        File file = null;
+        try {
+            file = File.createTempFile("export-" + job.getId(), ".tmp", spoolDir);
+            job.running(file);
+            if (jobs.get(job.getId()) != job) {
+                // 创建文件前任务已被shutdown删除，release时还没有文件，由这里删除
+                deleteFile(job);
+                return;
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                task.export(out, job);
+            }
+            job.done();
+        } catch (Exception e) {
+            LOGGER.error("导出任务{}失败", job.getId(), e);
+            job.failed(e.getMessage() == null ? "导出Excel失败" : e.getMessage());
+            if (file != null && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * @param id 任务编号
+     * @return 任务，不存在或已过期时为null
+     * @MethodName : getJob
+     */
+    public ExcelExportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @param id       任务编号
+     * @param response 下载的响应
+     * @throws Exception 任务不存在或未完成
+     * @MethodName : download
+     * @Description : 下载已完成的导出文件，方法返回时文件已全部写到响应流。
+     * 下载过程中调用remove或任务过期时，文件在下载结束后才删除
+     */
+    public void download(String id, HttpServletResponse response) throws Exception {
+        ExcelExportJob job = jobs.get(id);
+        if (job == null || !job.startDownload()) {
+            throw new Exception("导出任务不存在或已过期");
+        }
+        try {
+            if (job.getStatus() != ExcelExportJob.Status.DONE) {
+                throw new Exception("导出任务未完成");
+            }
+            write(job.getFile(), job.getFileName(), response);
+        } finally {
+            if (job.endDownload()) {
+                deleteFile(job);
+            }
+        }
+    }
+
+    private static void write(File file, String fileName, HttpServletResponse response) throws Exception {
+        long length = file.length();
+        response.reset();
+        response.setContentType(fileName.endsWith(ExcelUtils.Postfix.XLSX.getValue())
+                ? "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+                : "application/octet-stream");
+        response.setHeader("Content-disposition", "attachment; filename="
+                + URLEncoder.encode(fileName, "UTF-8"));
+        response.setHeader("Content-Transfer-Encoding", "binary");
+        response.setContentLengthLong(length);
+
+        // 响应流不是文件通道，transferTo经过一块堆内缓冲区复制
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, target);
+            }
+            response.flushBuffer();
+        }
+    }
+
+    /**
+     * @param id 任务编号
+     * @MethodName : remove
+     * @Description : 删除已结束的任务和文件，如下载完成后调用。正在下载时文件在下载结束后删除
+     */
+    public void remove(String id) {
+        ExcelExportJob job = jobs.get(id);
+        if (job != null && job.isFinished() && jobs.remove(id, job)) {
+            release(job);
+        }
+    }
+
+    /**
+     * @MethodName : shutdown
+     * @Description : 停止接收任务，中断正在导出的任务并删除所有文件，正在下载的文件在下载结束后删除
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+        for (ExcelExportJob job : jobs.values()) {
+            if (jobs.remove(job.getId(), job)) {
+                release(job);
+            }
+        }
+    }
+
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        for (ExcelExportJob job : jobs.values()) {
+            try {
+                if (job.isFinished() && now - job.getFinishTime() > retentionMillis
+                        && jobs.remove(job.getId(), job)) {
+                    release(job);
+                }
+            } catch (RuntimeException e) {
+                // 定时清理遇到异常会停止后续执行，只记录日志
+                LOGGER.warn("清理导出任务{}失败", job.getId(), e);
+            }
+        }
+    }
+
+    private static void release(ExcelExportJob job) {
+        if (job.remove()) {
+            deleteFile(job);
+        }
+    }
+
+    private static void deleteFile(ExcelExportJob job) {
+        File file = job.getFile();
+        if (file != null && file.exists() && !file.delete()) {
+            LOGGER.warn("删除导出文件{}失败", file);
+        }
+    }
+
+    /**
+     * 每取出一行更新一次任务的进度
+     */
+    private static class CountingIterator<T> implements Iterator<T> {
+        private final Iterator<T> source;
+        private final ExcelExportJob job;
+
+        CountingIterator(Iterator<T> source, ExcelExportJob job) {
+            this.source = source;
+            this.job = job;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public T next() {
+            T next = source.next();
+            job.addWrittenRows(1);
+            return next;
+        }
+    }
+}
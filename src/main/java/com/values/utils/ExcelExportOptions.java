@@ -0,0 +1,189 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @Description Excel导出参数，未设置的项使用默认值
+ */
+public class ExcelExportOptions {
+    /**
+     * 2007的Excel一个工作表最多可以有1048576条记录，除去列头剩下1048575条
+     */
+    public static final int XLSX_MAX_SHEET_SIZE = 1048575;
+
+    /**
+     * 流式导出时内存中保留的行数，超出的行会被刷到临时文件
+     */
+    public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
+    /**
+     * 并行转换时每块的行数
+     */
+    public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1000;
+
+    /**
+     * 字符串去重缓存的槽位数
+     */
+    public static final int DEFAULT_STRING_CACHE_SIZE = 4096;
+
+    private int sheetSize = XLSX_MAX_SHEET_SIZE;
+    private int rowAccessWindowSize = DEFAULT_ROW_ACCESS_WINDOW_SIZE;
+    private boolean compressTempFiles = true;
+    private int autoSizeSampleRows = 0;
+    private Executor executor;
+    private int parallelChunkSize = DEFAULT_PARALLEL_CHUNK_SIZE;
+    private int parallelism = 0;
+    private boolean nativeCellTypes = false;
+    private String datePattern = DateUtils.DATE_TIME_FORMAT;
+    private int stringCacheSize = DEFAULT_STRING_CACHE_SIZE;
+    private String jobName;
+
+    public int getSheetSize() {
+        return sheetSize;
+    }
+
+    /**
+     * @param sheetSize 每个工作表中记录的最大个数，超出范围时使用格式支持的最大值
+     */
+    public ExcelExportOptions setSheetSize(int sheetSize) {
+        this.sheetSize = sheetSize;
+        return this;
+    }
+
+    public int getRowAccessWindowSize() {
+        return rowAccessWindowSize;
+    }
+
+    /**
+     * @param rowAccessWindowSize 内存中保留的行数，行数越少占用内存越少
+     */
+    public ExcelExportOptions setRowAccessWindowSize(int rowAccessWindowSize) {
+        this.rowAccessWindowSize = rowAccessWindowSize;
+        return this;
+    }
+
+    public boolean isCompressTempFiles() {
+        return compressTempFiles;
+    }
+
+    /**
+     * @param compressTempFiles 是否压缩刷出的临时文件，压缩后磁盘占用小但会多消耗CPU
+     */
+    public ExcelExportOptions setCompressTempFiles(boolean compressTempFiles) {
+        this.compressTempFiles = compressTempFiles;
+        return this;
+    }
+
+    public int getAutoSizeSampleRows() {
+        return autoSizeSampleRows;
+    }
+
+    /**
+     * @param autoSizeSampleRows 自动列宽只根据每个工作表的前N行数据计算，小于1时统计所有行（默认）
+     */
+    public ExcelExportOptions setAutoSizeSampleRows(int autoSizeSampleRows) {
+        this.autoSizeSampleRows = autoSizeSampleRows;
+        return this;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param executor 把对象转换为单元格数据的线程池（如ForkJoinPool），为null时在当前线程顺序转换（默认）。
+     *                 转换并行执行，写入工作簿仍按原顺序在当前线程进行
+     */
+    public ExcelExportOptions setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    /**
+     * @param parallelChunkSize 并行转换时每块的行数
+     */
+    public ExcelExportOptions setParallelChunkSize(int parallelChunkSize) {
+        this.parallelChunkSize = parallelChunkSize;
+        return this;
+    }
+
+    /**
+     * @return 同时在转换的块数，未设置时取ForkJoinPool的并行度或CPU核数
+     */
+    public int getParallelism() {
+        if (parallelism > 0) {
+            return parallelism;
+        }
+        if (executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getParallelism();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param parallelism 同时在转换的块数，决定了并行转换时内存中最多保留的行数
+     */
+    public ExcelExportOptions setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public boolean isNativeCellTypes() {
+        return nativeCellTypes;
+    }
+
+    /**
+     * @param nativeCellTypes 数字、日期、布尔值是否写成Excel的数字、日期、布尔单元格（可排序、求和），
+     *                        默认false，所有值都转成文本。超出double精度的Long、BigDecimal等仍写成文本
+     */
+    public ExcelExportOptions setNativeCellTypes(boolean nativeCellTypes) {
+        this.nativeCellTypes = nativeCellTypes;
+        return this;
+    }
+
+    public String getDatePattern() {
+        return datePattern;
+    }
+
+    /**
+     * @param datePattern 日期单元格的显示格式，默认yyyy-MM-dd HH:mm:ss，只在nativeCellTypes为true时使用
+     */
+    public ExcelExportOptions setDatePattern(String datePattern) {
+        this.datePattern = datePattern;
+        return this;
+    }
+
+    public int getStringCacheSize() {
+        return stringCacheSize;
+    }
+
+    /**
+     * @param stringCacheSize 单元格文本去重缓存的槽位数，重复的文本（如状态、机构名）只保留一个实例，
+     *                        工作簿在写出前持有的所有单元格共用这些实例；小于1时不去重，最多2^20个槽位
+     */
+    public ExcelExportOptions setStringCacheSize(int stringCacheSize) {
+        this.stringCacheSize = stringCacheSize;
+        return this;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * @param jobName 任务名，作为导出指标（excel.*）的job标签，便于按报表设置告警，未设置时使用工作表名称
+     */
+    public ExcelExportOptions setJobName(String jobName) {
+        this.jobName = jobName;
+        return this;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+/**
+ * @Description 导入Excel时某个单元格转换失败的信息，用于一次性提示用户所有错误
+ */
+public class ExcelImportError {
+    private final int row;
+    private final String column;
+    private final String value;
+    private final String message;
+
+    /**
+     * @param row     行号，从1开始，同Excel中显示的行号
+     * @param column  列名（Excel中的中文列头）
+     * @param value   单元格内容
+     * @param message 错误原因
+     */
+    public ExcelImportError(int row, String column, String value, String message) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "第" + row + "行【" + column + "】" + value + "：" + message;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+/**
+ * @Description Excel导入参数，未设置的项使用默认值
+ */
+public class ExcelImportOptions {
+    private String jobName;
+    private boolean collectErrors = true;
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * @param jobName 任务名，作为导入指标（excel.*）的job标签，便于按业务设置告警，未设置时使用工作表名称
+     */
+    public ExcelImportOptions setJobName(String jobName) {
+        this.jobName = jobName;
+        return this;
+    }
+
+    public boolean isCollectErrors() {
+        return collectErrors;
+    }
+
+    /**
+     * @param collectErrors 只对excelToList(InputStream, String, Class, LinkedHashMap, String[], Executor,
+     *                      ExcelImportOptions)有效：默认为true，单元格转换失败时不抛出异常，最后一次返回所有错误；为false时直接抛出异常
+     */
+    public ExcelImportOptions setCollectErrors(boolean collectErrors) {
+        this.collectErrors = collectErrors;
+        return this;
+    }
+}
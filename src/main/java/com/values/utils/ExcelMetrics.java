@@ -0,0 +1,236 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description 一次导入/导出的统计，记录到Micrometer的全局注册表（Spring Boot的actuator会把自己的注册表加进去）。
+ * 各阶段的耗时先在本对象中累加，结束时一次性记录，不在每行上查找指标；
+ * 全局注册表中没有任何注册表时不计时，几乎没有额外开销。指标：
+ * <ul>
+ * <li>excel.phase：各阶段耗时（Timer），phase为parse、dedup、convert、consume、write、autosize</li>
+ * <li>excel.duration：整次耗时（Timer），outcome为success或failure</li>
+ * <li>excel.rows：处理的行数（Counter），excel.rows.rate：每次的行数/秒（DistributionSummary）</li>
+ * <li>excel.bytes.written：导出写出的字节数（Counter）</li>
+ * <li>excel.rows.buffered：每次内存中同时保留的最多行数（DistributionSummary，max即峰值）</li>
+ * <li>excel.failures：失败次数（Counter），exception为异常类名；excel.cell.errors：转换失败的单元格数</li>
+ * </ul>
+ * 所有指标都带operation（export、import、read）、format（xls、xlsx）、job（调用方指定的任务名，默认为工作表名称）标签
+ */
+final class ExcelMetrics {
+
+    enum Phase {
+        /**
+         * 读取、解析文件
+         */
+        PARSE("parse"),
+        /**
+         * 查找重复行
+         */
+        DEDUP("dedup"),
+        /**
+         * 单元格与对象之间的转换
+         */
+        CONVERT("convert"),
+        /**
+         * 分批导入时调用方处理每批对象
+         */
+        CONSUME("consume"),
+        /**
+         * 写入单元格和写出文件（包括同步统计列宽）
+         */
+        WRITE("write"),
+        /**
+         * 设置列宽
+         */
+        AUTO_SIZE("autosize");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private static final String DEFAULT_JOB = "default";
+
+    private final MeterRegistry registry = Metrics.globalRegistry;
+    private final boolean enabled;
+    private final Tags tags;
+    private final long startTime;
+    private final LongAdder[] nanos;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder cellErrors = new LongAdder();
+    private long peakBufferedRows;
+    private Phase remainder;
+    private CountingOutputStream out;
+
+    private ExcelMetrics(String operation, String format, String job) {
+        this.enabled = !Metrics.globalRegistry.getRegistries().isEmpty();
+        this.tags = Tags.of("operation", operation, "format", format,
+                "job", job == null || job.isEmpty() ? DEFAULT_JOB : job);
+        this.startTime = enabled ? System.nanoTime() : 0;
+        this.nanos = new LongAdder[PHASES.length];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param operation export、import或read
+     * @param format    xls或xlsx
+     * @param job       任务名，为空时记为default
+     */
+    static ExcelMetrics start(String operation, String format, String job) {
+        return new ExcelMetrics(operation, format, job);
+    }
+
+    static String format(ExcelUtils.Postfix postfix) {
+        return ExcelUtils.Postfix.XLSX.equals(postfix) ? "xlsx" : "xls";
+    }
+
+    /**
+     * @return 当前时间，不统计时为0
+     */
+    long tick() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 把从since到现在的耗时计入phase，可以被多个线程同时调用
+     *
+     * @return 当前时间，可以作为下一阶段的since
+     */
+    long add(Phase phase, long since) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        nanos[phase.ordinal()].add(now - since);
+        return now;
+    }
+
+    /**
+     * 结束时把总耗时中没有计入其他阶段的部分计入phase，用于解析和处理交错进行的流式读取
+     */
+    void remainderTo(Phase phase) {
+        this.remainder = phase;
+    }
+
+    void addRows(long count) {
+        rows.add(count);
+    }
+
+    void addCellErrors(long count) {
+        cellErrors.add(count);
+    }
+
+    /**
+     * @param count 当前内存中保留的行数，只保留最大值
+     */
+    void buffered(long count) {
+        if (count > peakBufferedRows) {
+            peakBufferedRows = count;
+        }
+    }
+
+    /**
+     * @return 统计写出字节数的导出流，不统计时原样返回
+     */
+    OutputStream countBytes(OutputStream target) {
+        if (!enabled) {
+            return target;
+        }
+        out = new CountingOutputStream(target);
+        return out;
+    }
+
+    void success() {
+        finish("success", null);
+    }
+
+    void failure(Throwable e) {
+        finish("failure", e);
+    }
+
+    private void finish(String outcome, Throwable e) {
+        if (!enabled) {
+            return;
+        }
+        long total = System.nanoTime() - startTime;
+        Timer.builder("excel.duration").tags(tags).tag("outcome", outcome).register(registry)
+                .record(total, TimeUnit.NANOSECONDS);
+        if (remainder != null) {
+            long measured = 0;
+            for (LongAdder phaseNanos : nanos) {
+                measured += phaseNanos.sum();
+            }
+            nanos[remainder.ordinal()].add(Math.max(0, total - measured));
+        }
+        for (Phase phase : PHASES) {
+            long phaseNanos = nanos[phase.ordinal()].sum();
+            if (phaseNanos > 0) {
+                Timer.builder("excel.phase").tags(tags).tag("phase", phase.tag).register(registry)
+                        .record(phaseNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        long rowCount = rows.sum();
+        if (rowCount > 0) {
+            Counter.builder("excel.rows").tags(tags).register(registry).increment(rowCount);
+            DistributionSummary.builder("excel.rows.rate").baseUnit("rows/s").tags(tags).register(registry)
+                    .record(rowCount * 1e9 / Math.max(1, total));
+        }
+        if (peakBufferedRows > 0) {
+            DistributionSummary.builder("excel.rows.buffered").baseUnit("rows").tags(tags).register(registry)
+                    .record(peakBufferedRows);
+        }
+        if (out != null) {
+            Counter.builder("excel.bytes.written").baseUnit("bytes").tags(tags).register(registry)
+                    .increment(out.count);
+        }
+        long errors = cellErrors.sum();
+        if (errors > 0) {
+            Counter.builder("excel.cell.errors").tags(tags).register(registry).increment(errors);
+        }
+        if (e != null) {
+            Counter.builder("excel.failures").tags(tags).tag("exception", e.getClass().getSimpleName())
+                    .register(registry).increment();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Description 流式读取Excel时的一行，按列下标存放在数组中。同一个工作表的所有行复用同一个对象，
+ * 回调返回后内容即被下一行覆盖，需要保留时用toArray或toMap复制。值的规则同ExcelUtils.readExcel，
+ * 没有单元格的列为null
+ */
+public final class ExcelRow {
+    private Object[] values = new Object[16];
+    private int size;
+    private int rowNum = -1;
+
+    ExcelRow() {
+    }
+
+    /**
+     * 开始新的一行，清空上一行的值
+     */
+    void reset(int rowNum) {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        this.rowNum = rowNum;
+    }
+
+    void set(int column, Object value) {
+        if (column >= values.length) {
+            values = Arrays.copyOf(values, Math.max(column + 1, values.length * 2));
+        }
+        values[column] = value;
+        if (column >= size) {
+            size = column + 1;
+        }
+    }
+
+    /**
+     * @return 行号，从0开始
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * @return 最后一个单元格的列下标+1
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param column 列下标，从0开始
+     * @return 单元格的值，没有单元格时为null
+     */
+    public Object get(int column) {
+        return column < size ? values[column] : null;
+    }
+
+    /**
+     * @param column 列下标，从0开始
+     * @return 单元格的文本，没有单元格时为空字符串
+     */
+    public String getString(int column) {
+        Object value = get(column);
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * @return 没有单元格，或所有单元格都是空白
+     */
+    public boolean isBlank() {
+        for (int i = 0; i < size; i++) {
+            Object value = values[i];
+            if (value != null && !value.toString().trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 复制当前行，下标为列下标，没有单元格的列为null
+     */
+    public Object[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return 复制当前行，key为有单元格的列下标，同ExcelUtils.readExcel
+     */
+    public Map<Integer, Object> toMap() {
+        Map<Integer, Object> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (values[i] != null) {
+                map.put(i, values[i]);
+            }
+        }
+        return map;
+    }
+}
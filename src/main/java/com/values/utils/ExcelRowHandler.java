@@ -0,0 +1,21 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.util.Map;
+
+/**
+ * @Description 流式读取Excel时的行回调，每读到一行调用一次
+ */
+@FunctionalInterface
+public interface ExcelRowHandler {
+
+    /**
+     * @param rowNum 行号，从0开始
+     * @param row    一行Excel的值，key为excel的列的下标，值的规则同ExcelUtils.readExcel
+     * @throws Exception 抛出异常时停止读取，异常由调用方法原样抛出
+     */
+    void handle(int rowNum, Map<Integer, Object> row) throws Exception;
+}
@@ -0,0 +1,27 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+/**
+ * @Description 流式读取Excel时的行回调，每读到一行调用一次。传入的ExcelRow被所有行复用，
+ * 不为每行创建Map，适合列多、行多的工作表
+ */
+@FunctionalInterface
+public interface ExcelRowVisitor {
+
+    /**
+     * @param row 当前行，回调返回后内容会被下一行覆盖
+     * @throws Exception 抛出异常时停止读取，异常由调用方法原样抛出
+     */
+    void visit(ExcelRow row) throws Exception;
+
+    /**
+     * @param handler 按Map接收每一行的回调
+     * @return 每行复制成Map后交给handler的回调
+     */
+    static ExcelRowVisitor of(ExcelRowHandler handler) {
+        return row -> handler.handle(row.getRowNum(), row.toMap());
+    }
+}
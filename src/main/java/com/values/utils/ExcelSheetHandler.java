@@ -0,0 +1,40 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * @Description 流式读取多个工作表时的回调，每遇到一个工作表调用一次，决定是否读取以及由哪个行回调处理
+ */
+@FunctionalInterface
+public interface ExcelSheetHandler {
+
+    /**
+     * @param sheetIndex 工作表的下标，从0开始
+     * @param sheetName  工作表名称
+     * @return 该工作表的行回调，返回null时跳过该工作表，不解析其内容
+     * @throws Exception 抛出异常时停止读取，异常由调用方法原样抛出
+     */
+    ExcelRowVisitor begin(int sheetIndex, String sheetName) throws Exception;
+
+    /**
+     * @param handlers 工作表名称和行回调的对应关系，只读取其中的工作表
+     * @return 按名称选择工作表的回调
+     */
+    static ExcelSheetHandler byName(Map<String, ? extends ExcelRowVisitor> handlers) {
+        return (sheetIndex, sheetName) -> handlers.get(sheetName);
+    }
+
+    /**
+     * @param sheetIndexes 要读取的工作表下标
+     * @param handler      这些工作表共用的行回调，并发读取时需要线程安全
+     * @return 按下标选择工作表的回调
+     */
+    static ExcelSheetHandler byIndex(Collection<Integer> sheetIndexes, ExcelRowVisitor handler) {
+        return (sheetIndex, sheetName) -> sheetIndexes.contains(sheetIndex) ? handler : null;
+    }
+}
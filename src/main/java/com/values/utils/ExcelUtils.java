@@ -4,30 +4,78 @@
  */
 package com.values.utils;
 
-import com.google.common.base.Joiner;
 import jxl.Cell;
 import jxl.Sheet;
 import jxl.Workbook;
+import jxl.write.DateFormat;
+import jxl.write.DateTime;
 import jxl.write.Label;
+import jxl.write.WritableCellFormat;
 import jxl.write.WritableSheet;
 import jxl.write.WritableWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFCell;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.commons.lang.StringUtils;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
-import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author <a href="mailto:Jason@wolaidai.com">Jason</a>
  * @Description Excel导入导出工具类
  */
 public class ExcelUtils {
+    /**
+     * 并行导入时每块的行数
+     */
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
+    /**
+     * 写文件时的缓冲区大小
+     */
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * double能准确表示的最大整数2^53
+     */
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
+    /**
+     * DecimalFormat不是线程安全的，每个线程一个
+     */
+    private static final ThreadLocal<DecimalFormat> INTEGER_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("0"));
+
+    /**
+     * jxl单元格常规格式的数字内容，最多三位小数
+     */
+    private static final ThreadLocal<DecimalFormat> GENERAL_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#.###"));
+
     private static String[] parsePatterns = {"yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd HH:mm", "yyyy/MM/dd",
             "yyyy/MM/dd HH:mm:ss", "yyyy/MM/dd HH:mm"};
 
@@ -46,52 +94,71 @@ public class ExcelUtils {
     public static <T> void listToExcel(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName,
                                        int sheetSize, OutputStream out) throws Exception {
 
+        listToExcel(list, fieldMap, sheetName, new ExcelExportOptions().setSheetSize(sheetSize), out);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称
+     * @param options   导出参数，不使用流式导出的参数，为null时使用默认值
+     * @param out       导出流
+     * @throws Exception
+     * @MethodName : listToExcel
+     * @Description : 导出Excel（可以导出到本地文件系统，也可以导出到浏览器，可自定义导出参数）
+     */
+    public static <T> void listToExcel(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                       ExcelExportOptions options, OutputStream out) throws Exception {
+
         if (list == null || list.size() == 0) {
             throw new Exception("数据源中没有任何数据");
         }
 
+        if (options == null) {
+            options = new ExcelExportOptions();
+        }
+        int sheetSize = options.getSheetSize();
         if (sheetSize > 65535 || sheetSize < 1) {
             sheetSize = 65535;
         }
 
         // 创建工作簿并发送到OutputStream指定的地方
+        ExcelMetrics metrics = ExcelMetrics.start("export", "xls", jobName(options, sheetName));
         WritableWorkbook wwb = null;
+        CellRows<T> rows = new CellRows<>(list.iterator(), fieldMap, options, metrics);
         try {
-            wwb = Workbook.createWorkbook(out);
+            wwb = Workbook.createWorkbook(metrics.countBytes(out));
+            // 单元格格式是整个工作簿共用的，日期格式只创建一个
+            WritableCellFormat dateFormat = options.isNativeCellTypes()
+                    ? new WritableCellFormat(new DateFormat(options.getDatePattern())) : null;
 
             // 因为2003的Excel一个工作表最多可以有65536条记录，除去列头剩下65535条
             // 所以如果记录太多，需要放到多个工作表中，其实就是个分页的过程
             // 1.计算一共有多少个工作表
-            double sheetNum = Math.ceil(list.size() / new Integer(sheetSize).doubleValue());
+            int sheetNum = (list.size() + sheetSize - 1) / sheetSize;
 
-            // 2.创建相应的工作表，并向其中填充数据
+            // 2.创建相应的工作表，每个工作表依次从数据源中取sheetSize条数据填充
             for (int i = 0; i < sheetNum; i++) {
-                // 如果只有一个工作表的情况
-                if (1 == sheetNum) {
-                    WritableSheet sheet = wwb.createSheet(sheetName, i);
-                    fillSheet(sheet, list, fieldMap, 0, list.size() - 1);
-
-                    // 有多个工作表的情况
-                } else {
-                    WritableSheet sheet = wwb.createSheet(sheetName + (i + 1), i);
-
-                    // 获取开始索引和结束索引
-                    int firstIndex = i * sheetSize;
-                    int lastIndex =
-                            (i + 1) * sheetSize - 1 > list.size() - 1 ? list.size() - 1 : (i + 1) * sheetSize - 1;
-                    // 填充工作表
-                    fillSheet(sheet, list, fieldMap, firstIndex, lastIndex);
-                }
+                // 只有一个工作表时名称不带序号
+                WritableSheet sheet = wwb.createSheet(1 == sheetNum ? sheetName : sheetName + (i + 1), i);
+                fillSheet(sheet, rows, sheetSize, options.getAutoSizeSampleRows(), dateFormat, metrics);
             }
+            // jxl在写出前把整个工作簿保留在内存中
+            metrics.buffered(list.size() + rows.getPeakBufferedRows());
+            long start = metrics.tick();
             wwb.write();
+            metrics.add(ExcelMetrics.Phase.WRITE, start);
 
         } catch (Exception e) {
+            metrics.failure(e);
             throw new Exception("导出Excel失败", e);
         } finally {
+            rows.close();
             if (null != wwb) {
                 wwb.close();
             }
         }
+        metrics.success();
 
     }
 
@@ -163,6 +230,219 @@ public class ExcelUtils {
         listToExcel(list, fieldMap, sheetName, 65535, response);
     }
 
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系，规则同listToExcel
+     * @param sheetName 工作表的名称
+     * @param options   导出参数（工作表大小、内存中保留的行数等），为null时使用默认值
+     * @param out       导出流
+     * @throws Exception
+     * @MethodName : listToXlsx
+     * @Description : 流式导出2007格式的Excel，内存中只保留固定行数，超出部分刷到临时文件，适合大数据量导出
+     */
+    public static <T> void listToXlsx(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                      ExcelExportOptions options, OutputStream out) throws Exception {
+
+        if (list == null || list.size() == 0) {
+            throw new Exception("数据源中没有任何数据");
+        }
+        iteratorToXlsx(list.iterator(), fieldMap, sheetName, options, out);
+    }
+
+    /**
+     * @MethodName : listToXlsx
+     * @Description : 流式导出2007格式的Excel，使用默认导出参数
+     */
+    public static <T> void listToXlsx(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                      OutputStream out) throws Exception {
+
+        listToXlsx(list, fieldMap, sheetName, null, out);
+    }
+
+    /**
+     * @param list      数据源
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param options   导出参数，为null时使用默认值
+     * @param response  使用response可以导出到浏览器
+     * @throws Exception
+     * @MethodName : listToXlsx
+     * @Description : 流式导出2007格式的Excel到浏览器
+     */
+    public static <T> void listToXlsx(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                      ExcelExportOptions options, HttpServletResponse response) throws Exception {
+
+        setXlsxResponseHeader(response);
+        try (OutputStream out = response.getOutputStream()) {
+            listToXlsx(list, fieldMap, sheetName, options, out);
+        }
+    }
+
+    /**
+     * @MethodName : listToXlsx
+     * @Description : 流式导出2007格式的Excel到浏览器，使用默认导出参数
+     */
+    public static <T> void listToXlsx(List<T> list, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                      HttpServletResponse response) throws Exception {
+
+        listToXlsx(list, fieldMap, sheetName, null, response);
+    }
+
+    /**
+     * @param rows      数据源，边写边从迭代器中取数据，不需要事先把所有数据加载到内存
+     * @param fieldMap  类的英文属性和Excel中的中文列名的对应关系
+     * @param sheetName 工作表的名称，有多个工作表时依次命名为sheetName1..N
+     * @param options   导出参数，为null时使用默认值
+     * @param out       导出流
+     * @throws Exception
+     * @MethodName : iteratorToXlsx
+     * @Description : 流式导出2007格式的Excel，数据源为迭代器（如数据库游标）
+     */
+    public static <T> void iteratorToXlsx(Iterator<T> rows, LinkedHashMap<String, String> fieldMap,
+                                          String sheetName, ExcelExportOptions options, OutputStream out)
+            throws Exception {
+
+        if (rows == null || !rows.hasNext()) {
+            throw new Exception("数据源中没有任何数据");
+        }
+
+        if (options == null) {
+            options = new ExcelExportOptions();
+        }
+        int sheetSize = options.getSheetSize();
+        if (sheetSize > ExcelExportOptions.XLSX_MAX_SHEET_SIZE || sheetSize < 1) {
+            sheetSize = ExcelExportOptions.XLSX_MAX_SHEET_SIZE;
+        }
+
+        ExcelMetrics metrics = ExcelMetrics.start("export", "xlsx", jobName(options, sheetName));
+        SXSSFWorkbook wb = new SXSSFWorkbook(options.getRowAccessWindowSize());
+        wb.setCompressTempFiles(options.isCompressTempFiles());
+        CellRows<T> cellRows = new CellRows<>(rows, fieldMap, options, metrics);
+        try {
+            CellStyle dateStyle = null;
+            if (options.isNativeCellTypes()) {
+                dateStyle = wb.createCellStyle();
+                dateStyle.setDataFormat(wb.createDataFormat().getFormat(options.getDatePattern()));
+            }
+            // 事先不知道总行数，写满一个工作表后还有数据才创建下一个
+            int sheetNum = 0;
+            long written = 0;
+            while (cellRows.hasNext()) {
+                if (1 == sheetNum) {
+                    // 有多个工作表时，第一个工作表也要带上序号
+                    wb.setSheetName(0, sheetName + 1);
+                }
+                org.apache.poi.ss.usermodel.Sheet sheet =
+                        wb.createSheet(0 == sheetNum ? sheetName : sheetName + (sheetNum + 1));
+                written += fillXlsxSheet(sheet, cellRows, sheetSize, options.getAutoSizeSampleRows(), dateStyle,
+                        metrics);
+                sheetNum++;
+            }
+            // 内存中只保留最近的rowAccessWindowSize行，小于0时不刷出
+            int window = options.getRowAccessWindowSize();
+            metrics.buffered((window < 0 ? written : Math.min(window, written)) + cellRows.getPeakBufferedRows());
+            long start = metrics.tick();
+            wb.write(metrics.countBytes(out));
+            metrics.add(ExcelMetrics.Phase.WRITE, start);
+
+        } catch (Exception e) {
+            metrics.failure(e);
+            throw new Exception("导出Excel失败", e);
+        } finally {
+            cellRows.close();
+            // 删除刷出行时产生的临时文件
+            wb.dispose();
+        }
+        metrics.success();
+    }
+
+    /**
+     * @MethodName : iteratorToXlsx
+     * @Description : 流式导出2007格式的Excel到浏览器，数据源为迭代器
+     */
+    public static <T> void iteratorToXlsx(Iterator<T> rows, LinkedHashMap<String, String> fieldMap,
+                                          String sheetName, ExcelExportOptions options,
+                                          HttpServletResponse response) throws Exception {
+
+        setXlsxResponseHeader(response);
+        try (OutputStream out = response.getOutputStream()) {
+            iteratorToXlsx(rows, fieldMap, sheetName, options, out);
+        }
+    }
+
+    /**
+     * @param rows 数据源，导出结束后关闭
+     * @MethodName : streamToXlsx
+     * @Description : 流式导出2007格式的Excel，数据源为Stream
+     */
+    public static <T> void streamToXlsx(Stream<T> rows, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                        ExcelExportOptions options, OutputStream out) throws Exception {
+
+        try (Stream<T> stream = rows) {
+            iteratorToXlsx(stream.iterator(), fieldMap, sheetName, options, out);
+        }
+    }
+
+    /**
+     * @MethodName : streamToXlsx
+     * @Description : 流式导出2007格式的Excel到浏览器，数据源为Stream
+     */
+    public static <T> void streamToXlsx(Stream<T> rows, LinkedHashMap<String, String> fieldMap, String sheetName,
+                                        ExcelExportOptions options, HttpServletResponse response) throws Exception {
+
+        try (Stream<T> stream = rows) {
+            iteratorToXlsx(stream.iterator(), fieldMap, sheetName, options, response);
+        }
+    }
+
+    /**
+     * @param pageLoader 分页加载数据，参数为从0开始的页号，返回空列表或null表示没有更多数据
+     * @MethodName : pagesToXlsx
+     * @Description : 流式导出2007格式的Excel，按页拉取数据，内存中最多只保留一页数据
+     */
+    public static <T> void pagesToXlsx(IntFunction<List<T>> pageLoader, LinkedHashMap<String, String> fieldMap,
+                                       String sheetName, ExcelExportOptions options, OutputStream out)
+            throws Exception {
+
+        iteratorToXlsx(new PageIterator<T>(pageLoader), fieldMap, sheetName, options, out);
+    }
+
+    /**
+     * @MethodName : pagesToXlsx
+     * @Description : 流式导出2007格式的Excel到浏览器，按页拉取数据
+     */
+    public static <T> void pagesToXlsx(IntFunction<List<T>> pageLoader, LinkedHashMap<String, String> fieldMap,
+                                       String sheetName, ExcelExportOptions options, HttpServletResponse response)
+            throws Exception {
+
+        iteratorToXlsx(new PageIterator<T>(pageLoader), fieldMap, sheetName, options, response);
+    }
+
+    /**
+     * 设置导出2007格式Excel的response头信息，默认文件名为当前时间：年月日时分秒
+     */
+    private static void setXlsxResponseHeader(HttpServletResponse response) {
+        String fileName = new SimpleDateFormat("yyyyMMddhhmmss").format(new Date());
+
+        response.reset();
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-disposition", "attachment; filename=" + fileName + Postfix.XLSX.getValue());
+        response.setHeader("Content-Transfer-Encoding", "binary");
+    }
+
+    /**
+     * @return 指标的job标签，未设置任务名时使用工作表名称
+     */
+    private static String jobName(ExcelExportOptions options, String sheetName) {
+        return options.getJobName() != null ? options.getJobName() : sheetName;
+    }
+
+    /**
+     * @return 导入指标的job标签，没有参数或未设置任务名时使用工作表名称
+     */
+    private static String jobName(ExcelImportOptions options, String sheetName) {
+        return options != null && options.getJobName() != null ? options.getJobName() : sheetName;
+    }
+
     public static Map<String, Object> excelToMap(InputStream in, List<String> list) throws Exception {
         Map<String, Object> map = new LinkedHashMap<>();
         try {
@@ -195,6 +475,55 @@ public class ExcelUtils {
         return map;
     }
 
+    /**
+     * @param in        ：承载着.xls格式Excel的输入流
+     * @param sheetName ：工作表名称
+     * @param list      ：需要排除的第一列的值
+     * @return 第一列和第二列的对应关系，跳过列头，找不到工作表时为空
+     * @throws Exception
+     * @MethodName : excelToMap
+     * @Description : 同excelToMap(InputStream, List)，读取指定的工作表，流式读取，不加载其他工作表
+     */
+    public static Map<String, Object> excelToMap(InputStream in, String sheetName, List<String> list)
+            throws Exception {
+        return excelToMap(in, sheetName, list, null);
+    }
+
+    /**
+     * @param in        ：承载着.xls格式Excel的输入流
+     * @param sheetName ：工作表名称
+     * @param list      ：需要排除的第一列的值
+     * @param options   ：导入参数，为null时使用默认值
+     * @return 第一列和第二列的对应关系，跳过列头，找不到工作表时为空
+     * @throws Exception
+     * @MethodName : excelToMap
+     * @Description : 同excelToMap(InputStream, String, List)，可以指定指标的任务名
+     */
+    public static Map<String, Object> excelToMap(InputStream in, String sheetName, List<String> list,
+                                                 ExcelImportOptions options) throws Exception {
+        Map<String, Object> map = new LinkedHashMap<>();
+        ExcelMetrics metrics = ExcelMetrics.start("import", "xls", jobName(options, sheetName));
+        metrics.remainderTo(ExcelMetrics.Phase.PARSE);
+        try {
+            ExcelEventReader.readXls(in, sheetName, ExcelUtils::formatPlainNumber, row -> {
+                if (row.getRowNum() < 1) {
+                    return;
+                }
+                metrics.addRows(1);
+                String key = row.getString(0);
+                if (list.contains(key.trim())) {
+                    return;
+                }
+                map.put(key, row.getString(1).trim());
+            });
+        } catch (Exception e) {
+            metrics.failure(e);
+            throw e;
+        }
+        metrics.success();
+        return map;
+    }
+
     /**
      * @param in           ：承载着Excel的输入流
      * @param entityClass  ：List中对象的类型（Excel中的每一行都要转化为该类型的对象）
@@ -203,25 +532,70 @@ public class ExcelUtils {
      * @return List
      * @throws Exception
      * @MethodName : excelToList
-     * @Description : 将Excel转化为List
+     * @Description : 将Excel转化为List，单元格转换失败时直接抛出异常
      */
     public static <T> Map<String, Object> excelToList(InputStream in, String sheetName, Class<T> entityClass,
                                                       LinkedHashMap<String, String> fieldMap, String[] uniqueFields) throws Exception {
+        return excelToList(in, sheetName, entityClass, fieldMap, uniqueFields, null, false, null);
+    }
+
+    /**
+     * @param in           ：承载着Excel的输入流
+     * @param entityClass  ：List中对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap     ：Excel中的中文列头和类的英文属性的对应关系Map
+     * @param uniqueFields ：指定业务主键组合（即复合主键），这些列的组合不能重复
+     * @param executor     ：转换对象的线程池（如ForkJoinPool），为null时在当前线程顺序转换
+     * @return val：转换成功的对象，按Excel中的顺序；msg：行号和该行错误的对应关系；
+     * errors：所有转换失败的单元格（List&lt;ExcelImportError&gt;），按行、列排序
+     * @throws Exception
+     * @MethodName : excelToList
+     * @Description : 将Excel转化为List，按块并行转换。单元格转换失败时不抛出异常，
+     * 该行不放入结果，继续转换其余单元格，最后一次返回所有错误
+     */
+    public static <T> Map<String, Object> excelToList(InputStream in, String sheetName, Class<T> entityClass,
+                                                      LinkedHashMap<String, String> fieldMap, String[] uniqueFields,
+                                                      Executor executor) throws Exception {
+        return excelToList(in, sheetName, entityClass, fieldMap, uniqueFields, executor, true, null);
+    }
+
+    /**
+     * @param in           ：承载着Excel的输入流
+     * @param entityClass  ：List中对象的类型（Excel中的每一行都要转化为该类型的对象）
+     * @param fieldMap     ：Excel中的中文列头和类的英文属性的对应关系Map
+     * @param uniqueFields ：指定业务主键组合（即复合主键），这些列的组合不能重复
+     * @param executor     ：转换对象的线程池（如ForkJoinPool），为null时在当前线程顺序转换
+     * @param options      ：导入参数（任务名、单元格转换失败时是否抛出异常），为null时使用默认值
+     * @return 同excelToList(InputStream, String, Class, LinkedHashMap, String[], Executor)，
+     * options设置为不收集错误时同excelToList(InputStream, String, Class, LinkedHashMap, String[])
+     * @throws Exception
+     * @MethodName : excelToList
+     * @Description : 将Excel转化为List，可以指定指标的任务名
+     */
+    public static <T> Map<String, Object> excelToList(InputStream in, String sheetName, Class<T> entityClass,
+                                                      LinkedHashMap<String, String> fieldMap, String[] uniqueFields,
+                                                      Executor executor, ExcelImportOptions options) throws Exception {
+        boolean collectErrors = options == null || options.isCollectErrors();
+        return excelToList(in, sheetName, entityClass, fieldMap, uniqueFields, executor, collectErrors, options);
+    }
+
+    private static <T> Map<String, Object> excelToList(InputStream in, String sheetName, Class<T> entityClass,
+                                                       LinkedHashMap<String, String> fieldMap, String[] uniqueFields,
+                                                       Executor executor, boolean collectErrors,
+                                                       ExcelImportOptions options) throws Exception {
         // 定义要返回的list
         List<T> resultList = new ArrayList<T>();
         Map<String, Object> map = new HashMap<String, Object>();
-        Map<String, String> errorMap = new HashMap<String, String>();
+        Map<String, String> errorMap = new LinkedHashMap<String, String>();
+        List<ExcelImportError> errors = new ArrayList<>();
+        ExcelMetrics metrics = ExcelMetrics.start("import", "xls", jobName(options, sheetName));
         try {
+            long phaseStart = metrics.tick();
             // 根据Excel数据源创建WorkBook
             Workbook wb = Workbook.getWorkbook(in);
             // 获取工作表
             Sheet sheet = wb.getSheet(sheetName);
             if (Objects.isNull(sheet)) {
-                return map;
-            }
-
-            if (sheet.getRows() > 5000) {
-                errorMap.put("error", "本次共导入{}条数据，已超出5000条上限。为保证系统稳定，请重新导入。");
+                metrics.success();
                 return map;
             }
 
@@ -242,12 +616,6 @@ public class ExcelUtils {
                 }
             }
 
-            // 如果Excel中没有数据则提示错误
-            if (sheet.getRows() > 5000) {
-                // return ;
-                errorMap.put("error", "本次共导入{}条数据，已超出5000条上限。为保证系统稳定，请重新导入。");
-            }
-
             Cell[] columnName = sheet.getRow(0);
             String[] excelFieldNames = new String[columnName.length];
 
@@ -276,59 +644,83 @@ public class ExcelUtils {
             for (int i = 0; i < excelFieldNames.length; i++) {
                 colMap.put(excelFieldNames[i], columnName[i].getColumn());
             }
+            phaseStart = metrics.add(ExcelMetrics.Phase.PARSE, phaseStart);
 
             // 判断是否有重复行
-            // 1.获取uniqueFields指定的列
-            Cell[][] uniqueCells = new Cell[uniqueFields.length][];
-            for (int i = 0; i < uniqueFields.length; i++) {
-                int col = colMap.get(uniqueFields[i]);
-                uniqueCells[i] = sheet.getColumn(col);
-            }
+            if (uniqueFields != null && uniqueFields.length > 0) {
+                // 1.获取uniqueFields指定的列号
+                int[] uniqueCols = new int[uniqueFields.length];
+                for (int i = 0; i < uniqueFields.length; i++) {
+                    uniqueCols[i] = colMap.get(uniqueFields[i]);
+                }
 
-            // 2.从指定列中寻找重复行
-            for (int i = 1; i < realRows; i++) {
-                int nullCols = 0;
-                for (int j = 0; j < uniqueFields.length; j++) {
-                    String currentContent = uniqueCells[j][i].getContents();
-                    Cell sameCell = sheet.findCell(currentContent, uniqueCells[j][i].getColumn(),
-                            uniqueCells[j][i].getRow() + 1, uniqueCells[j][i].getColumn(),
-                            uniqueCells[j][realRows - 1].getRow(), true);
-                    if (sameCell != null) {
-                        nullCols++;
+                // 2.把每行指定列的内容组成复合主键，一次遍历找出所有重复行
+                DuplicateRowDetector detector = new DuplicateRowDetector();
+                for (int i = 1; i < realRows; i++) {
+                    String[] keyParts = new String[uniqueCols.length];
+                    for (int j = 0; j < uniqueCols.length; j++) {
+                        keyParts[j] = sheet.getCell(uniqueCols[j], i).getContents();
                     }
+                    // 提示给用户的行号从1开始
+                    detector.add(keyParts, i + 1);
                 }
 
-                if (nullCols == uniqueFields.length) {
-                    throw new Exception("Excel中有重复行，请检查");
+                if (detector.hasDuplicates()) {
+                    throw new Exception("Excel中有重复行，请检查：" + detector.getMessage());
                 }
+                phaseStart = metrics.add(ExcelMetrics.Phase.DEDUP, phaseStart);
             }
 
             // 将sheet转换为list
-            for (int i = 1; i < realRows; i++) {
-                // 新建要转换的对象
-                T entity = entityClass.newInstance();
-
-                // 给对象中的字段赋值
-                for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-                    // 获取中文字段名
-                    String cnNormalName = entry.getKey();
-                    // 获取英文字段名
-                    String enNormalName = entry.getValue();
-                    // 根据中文字段名获取列号
-                    int col = colMap.get(cnNormalName);
-
-                    // 获取当前单元格中的内容
-                    String content = sheet.getCell(col, i).getContents().toString().trim();
-
-                    // 给对象赋值
-                    setFieldValueByName(enNormalName, content, entity);
+            EntityRows<T> rows = new EntityRows<>(entityClass, fieldMap, colMap, collectErrors);
+            if (executor == null) {
+                for (int i = 1; i < realRows; i++) {
+                    // 提示给用户的行号从1开始
+                    T entity = rows.convert(i + 1, rows.contents(sheet, i), errors);
+                    if (entity != null) {
+                        resultList.add(entity);
+                    }
+                }
+            } else {
+                // 单元格在当前线程读取（jxl的工作表不是线程安全的），转换交给线程池，按块的顺序合并结果
+                List<CompletableFuture<EntityChunk<T>>> chunks = new ArrayList<>();
+                for (int start = 1; start < realRows; start += IMPORT_CHUNK_SIZE) {
+                    int end = Math.min(start + IMPORT_CHUNK_SIZE, realRows);
+                    String[][] contents = new String[end - start][];
+                    for (int i = start; i < end; i++) {
+                        contents[i - start] = rows.contents(sheet, i);
+                    }
+                    int firstRowNo = start + 1;
+                    chunks.add(CompletableFuture.supplyAsync(() -> rows.convertAll(firstRowNo, contents), executor));
+                }
+                for (CompletableFuture<EntityChunk<T>> chunk : chunks) {
+                    EntityChunk<T> result = chunk.join();
+                    resultList.addAll(result.entities);
+                    errors.addAll(result.errors);
                 }
-
-                resultList.add(entity);
+            }
+            metrics.add(ExcelMetrics.Phase.CONVERT, phaseStart);
+            // jxl把整个工作表保留在内存中
+            metrics.buffered(realRows);
+            metrics.addRows(realRows - 1);
+            metrics.addCellErrors(errors.size());
+
+            for (ExcelImportError error : errors) {
+                String key = "第" + error.getRow() + "行";
+                String message = error.getColumn() + "：" + error.getMessage();
+                errorMap.merge(key, message, (a, b) -> a + "；" + b);
             }
             map.put("msg", errorMap);
             map.put("val", resultList);
+            map.put("errors", errors);
+            metrics.success();
+        } catch (CompletionException e) {
+            // 并行转换时的对象创建失败等异常
+            Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            metrics.failure(cause);
+            throw cause;
         } catch (Exception e) {
+            metrics.failure(e);
             e.printStackTrace();
             // 如果是Exception，则直接抛出
             if (e instanceof Exception) {
@@ -344,6 +736,58 @@ public class ExcelUtils {
     }
 
 
+    /**
+     * @param in           ：承载着Excel的输入流
+     * @param postfix      ：文件格式
+     * @param sheetName    ：工作表名称，为null时读取第一个工作表
+     * @param entityClass  ：每一行要转化的对象类型
+     * @param fieldMap     ：Excel中的中文列头和类的英文属性的对应关系Map
+     * @param uniqueFields ：指定业务主键组合（即复合主键），这些列的组合不能重复，可为null
+     * @param batchSize    ：每批的对象个数，如按JDBC批量插入的大小设置
+     * @param consumer     ：每凑满一批回调一次，最后不足一批的对象也会回调
+     * @return 转化的行数，找不到工作表时为0
+     * @throws Exception
+     * @MethodName : excelToList
+     * @Description : 流式读取Excel，逐行转化为对象后分批交给consumer处理（如批量写入数据库），
+     * 内存中最多只保留一批对象，没有行数上限。发现重复行后不再回调，继续读完后抛出所有重复行，
+     * 此前已回调的批次需要调用方自行回滚（如放在同一个事务中）
+     */
+    public static <T> int excelToList(InputStream in, Postfix postfix, String sheetName, Class<T> entityClass,
+                                      LinkedHashMap<String, String> fieldMap, String[] uniqueFields, int batchSize,
+                                      Consumer<List<T>> consumer) throws Exception {
+        return excelToList(in, postfix, sheetName, entityClass, fieldMap, uniqueFields, batchSize, consumer, null);
+    }
+
+    /**
+     * @param options ：导入参数，为null时使用默认值
+     * @MethodName : excelToList
+     * @Description : 同excelToList(InputStream, Postfix, String, Class, LinkedHashMap, String[], int, Consumer)，
+     * 可以指定指标的任务名
+     */
+    public static <T> int excelToList(InputStream in, Postfix postfix, String sheetName, Class<T> entityClass,
+                                      LinkedHashMap<String, String> fieldMap, String[] uniqueFields, int batchSize,
+                                      Consumer<List<T>> consumer, ExcelImportOptions options) throws Exception {
+        ExcelMetrics metrics = ExcelMetrics.start("import", ExcelMetrics.format(postfix), jobName(options, sheetName));
+        // 解析和转换交错进行，解析的耗时为总耗时减去其他阶段
+        metrics.remainderTo(ExcelMetrics.Phase.PARSE);
+        BatchImportHandler<T> handler =
+                new BatchImportHandler<>(entityClass, fieldMap, uniqueFields, batchSize, consumer, metrics);
+        int count;
+        try {
+            if (Postfix.XLS.equals(postfix)) {
+                ExcelEventReader.readXls(in, sheetName, ExcelUtils::formatPlainNumber, handler);
+            } else if (Postfix.XLSX.equals(postfix)) {
+                ExcelEventReader.readXlsx(in, sheetName, ExcelUtils::formatPlainNumber, handler);
+            }
+            count = handler.finish();
+        } catch (Exception e) {
+            metrics.failure(e);
+            throw e;
+        }
+        metrics.success();
+        return count;
+    }
+
     /**
      * 将excel文件转成list(.xls格式和.xlsx格式)</br>
      * list下标对应一行数据。map的key为excel的列的下标
@@ -353,76 +797,176 @@ public class ExcelUtils {
      */
 
     public static List<String> readExcel(InputStream is) throws IOException {
-        List<Map<Integer, Object>> tmp = readExcel(is, ExcelUtils.Postfix.XLS);
         List<String> result = new ArrayList<>();
-        if (tmp != null) {
-            tmp.forEach(map -> {
-                Collection<Object> objCollection = map.values();//一行Excel的值
-                String str = Joiner.on(",").join(objCollection);//一行Excellist转为String
-                String tempStr = Joiner.on(" ").join(objCollection);//去除带有空格的数据
-                if (tempStr != null && StringUtils.isNotBlank(tempStr.trim())) {
-                    result.add(str);
+        StringBuilder line = new StringBuilder();
+        readRows(is, ExcelUtils.Postfix.XLS, row -> {
+            // 空白的行不要
+            if (row.isBlank()) {
+                return;
+            }
+            // 一行Excel的值用逗号连接
+            line.setLength(0);
+            boolean first = true;
+            for (int i = 0; i < row.size(); i++) {
+                Object value = row.get(i);
+                if (value != null) {
+                    if (!first) {
+                        line.append(',');
+                    }
+                    line.append(value);
+                    first = false;
                 }
-            });
-        }
-
+            }
+            result.add(line.toString());
+        });
         return result;
     }
 
     public static List<Map<Integer, Object>> readExcel(InputStream is, ExcelUtils.Postfix postfix) throws IOException {
-        if (ExcelUtils.Postfix.XLS.equals(postfix)) {
-            return read(new HSSFWorkbook(is));
-        } else if (ExcelUtils.Postfix.XLSX.equals(postfix)) {
-            return read(new XSSFWorkbook(is));
+        if (!ExcelUtils.Postfix.XLS.equals(postfix) && !ExcelUtils.Postfix.XLSX.equals(postfix)) {
+            return null;
         }
-        return null;
+        List<Map<Integer, Object>> list = new ArrayList<>();
+        readRows(is, postfix, row -> list.add(row.toMap()));
+        return list;
     }
 
-    private static List<Map<Integer, Object>> read(org.apache.poi.ss.usermodel.Workbook workbook) throws IOException {
-        List<Map<Integer, Object>> list = new ArrayList<>();
-        org.apache.poi.ss.usermodel.Sheet hssfSheet = workbook.getSheetAt(0);
-        int rowstart = hssfSheet.getFirstRowNum();
-        int rowEnd = hssfSheet.getLastRowNum();
-        for (int i = rowstart; i <= rowEnd; i++) {
-            Map<Integer, Object> rowMap = new HashMap<>();
-            Row row = hssfSheet.getRow(i);
-            if (null == row)
-                continue;
-            int cellStart = row.getFirstCellNum();
-            int cellEnd = row.getLastCellNum();
-
-            for (int k = cellStart; k <= cellEnd; k++) {
-                org.apache.poi.ss.usermodel.Cell cell = row.getCell(k);
-                if (null == cell) {
-                    continue;
-                }
+    /**
+     * 读取第一个工作表的所有行，其他异常包装成IOException，保持原来的方法签名
+     */
+    private static void readRows(InputStream is, ExcelUtils.Postfix postfix, ExcelRowVisitor visitor)
+            throws IOException {
+        try {
+            readExcelRows(is, postfix, visitor);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 流式读取Excel的第一个工作表(.xls格式和.xlsx格式)，每读到一行回调一次，不在内存中构建整个工作簿，
+     * 内存占用与文件大小无关。map的key为excel的列的下标，值的规则同readExcel
+     *
+     * @param is      Excel的输入流
+     * @param postfix 文件格式
+     * @param handler 行回调
+     * @throws Exception 读取失败或回调中抛出的异常
+     */
+    public static void readExcel(InputStream is, ExcelUtils.Postfix postfix, ExcelRowHandler handler)
+            throws Exception {
+        readExcelRows(is, postfix, ExcelRowVisitor.of(handler));
+    }
+
+    /**
+     * 流式读取Excel的第一个工作表(.xls格式和.xlsx格式)，每读到一行回调一次。
+     * 所有行复用同一个ExcelRow，不为每行创建Map，值的规则同readExcel
+     *
+     * @param is      Excel的输入流
+     * @param postfix 文件格式
+     * @param visitor 行回调
+     * @throws Exception 读取失败或回调中抛出的异常
+     */
+    public static void readExcelRows(InputStream is, ExcelUtils.Postfix postfix, ExcelRowVisitor visitor)
+            throws Exception {
+        readExcelRows(is, postfix, false, visitor);
+    }
+
+    /**
+     * 同readExcelRows(InputStream, Postfix, ExcelRowVisitor)，可以选择公式单元格返回公式文本还是计算结果
+     *
+     * @param formulaResults 为true时公式单元格返回文件中缓存的计算结果（数字、文本、布尔值），
+     *                       不重新计算；为false时返回公式文本
+     */
+    public static void readExcelRows(InputStream is, ExcelUtils.Postfix postfix, boolean formulaResults,
+                                     ExcelRowVisitor visitor) throws Exception {
+        ExcelMetrics metrics = ExcelMetrics.start("read", ExcelMetrics.format(postfix), null);
+        // 逐行回调，读取的耗时包括回调的耗时
+        metrics.remainderTo(ExcelMetrics.Phase.PARSE);
+        ExcelSheetHandler firstSheet = ExcelEventReader.selectOne(null, countRows(visitor, metrics));
+        try {
+            if (ExcelUtils.Postfix.XLS.equals(postfix)) {
+                ExcelEventReader.readXls(is, ExcelUtils::formatNumber, formulaResults, firstSheet);
+            } else if (ExcelUtils.Postfix.XLSX.equals(postfix)) {
+                ExcelEventReader.readXlsx(is, ExcelUtils::formatNumber, formulaResults, firstSheet, null);
+            }
+        } catch (Exception e) {
+            metrics.failure(e);
+            throw e;
+        }
+        metrics.success();
+    }
 
-                rowMap.put(k, getValue(cell));
+    /**
+     * 流式读取Excel中选中的工作表(.xls格式和.xlsx格式)，按名称或下标选择，未选中的工作表不解析。
+     * .xlsx的各工作表可以在线程池中同时解析，每个工作表的行仍按顺序回调；.xls只能从头到尾顺序读取
+     *
+     * @param is       Excel的输入流
+     * @param postfix  文件格式
+     * @param handler  每个工作表回调一次，返回该工作表的行回调，返回null时跳过，
+     *                 可用ExcelSheetHandler.byName、ExcelSheetHandler.byIndex创建
+     * @param executor 同时解析.xlsx各工作表的线程池，为null时依次解析，对.xls不起作用
+     * @throws Exception 读取失败或回调中抛出的异常，多个工作表失败时抛出第一个
+     */
+    public static void readExcel(InputStream is, ExcelUtils.Postfix postfix, ExcelSheetHandler handler,
+                                 Executor executor) throws Exception {
+        ExcelMetrics metrics = ExcelMetrics.start("read", ExcelMetrics.format(postfix), null);
+        metrics.remainderTo(ExcelMetrics.Phase.PARSE);
+        ExcelSheetHandler counted = (sheetIndex, sheetName) -> {
+            ExcelRowVisitor visitor = handler.begin(sheetIndex, sheetName);
+            return visitor == null ? null : countRows(visitor, metrics);
+        };
+        try {
+            if (ExcelUtils.Postfix.XLS.equals(postfix)) {
+                ExcelEventReader.readXls(is, ExcelUtils::formatNumber, false, counted);
+            } else if (ExcelUtils.Postfix.XLSX.equals(postfix)) {
+                ExcelEventReader.readXlsx(is, ExcelUtils::formatNumber, false, counted, executor);
             }
-            list.add(rowMap);
+        } catch (Exception e) {
+            metrics.failure(e);
+            throw e;
         }
-        return list;
+        metrics.success();
     }
 
-    private static Object getValue(org.apache.poi.ss.usermodel.Cell cell) {
-        switch (cell.getCellType()) {
-            case HSSFCell.CELL_TYPE_NUMERIC: // 数字
-                //上传时格式是指数型的数字处理
-                DecimalFormat df = new DecimalFormat("0");
-                return df.format(cell.getNumericCellValue());
-            case HSSFCell.CELL_TYPE_STRING: // 字符串
-                return cell.getStringCellValue().trim();
-            case HSSFCell.CELL_TYPE_BOOLEAN: // Boolean
-                return cell.getBooleanCellValue();
-            case HSSFCell.CELL_TYPE_FORMULA: // 公式
-                return cell.getCellFormula();
-            case HSSFCell.CELL_TYPE_BLANK: // 空值
-                return "";
-            case HSSFCell.CELL_TYPE_ERROR: // 故障
-                return "";
-            default:
-                return "";
+    /**
+     * @return 统计行数的行回调，多个工作表同时解析时也可以使用
+     */
+    private static ExcelRowVisitor countRows(ExcelRowVisitor visitor, ExcelMetrics metrics) {
+        return row -> {
+            metrics.addRows(1);
+            visitor.visit(row);
+        };
+    }
+
+    /**
+     * 上传时格式是指数型的数字处理，按整数输出（四舍六入五成双，同DecimalFormat("0")），
+     * 如身份证号、手机号不会变成科学计数法。2^53以内（整数都能准确表示）直接计算，
+     * 超出时按double的十进制表示输出，仍用每个线程缓存的DecimalFormat
+     */
+    static String formatNumber(double value) {
+        if (Math.abs(value) < MAX_EXACT_LONG) {
+            long rounded = (long) Math.rint(value);
+            if (rounded == 0 && (value < 0 || 1 / value < 0)) {
+                // DecimalFormat保留负号
+                return "-0";
+            }
+            return Long.toString(rounded);
         }
+        return INTEGER_FORMAT.get().format(value);
+    }
+
+    /**
+     * 导入时数字同jxl单元格的内容（常规格式，DecimalFormat("#.###")）：整数不带小数点和指数，
+     * 小数最多三位（四舍六入五成双）并去掉末尾的0。2^53以内的整数直接输出
+     */
+    static String formatPlainNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_LONG
+                && (value != 0 || 1 / value > 0)) {
+            return Long.toString((long) value);
+        }
+        return GENERAL_FORMAT.get().format(value);
     }
 
     public enum Postfix {
@@ -448,67 +992,62 @@ public class ExcelUtils {
     }
 
 
+    /**
+     * @MethodName : writeExcel
+     * @Description : 把2003格式的工作簿写到文件，同writeExcel(Workbook, String, boolean)，不压缩
+     */
     public static void writeExcel(HSSFWorkbook book, String path) throws IOException {
-        File file = new File(path);
-        FileOutputStream fos = new FileOutputStream(file);
-        book.write(fos);
+        writeExcel((org.apache.poi.ss.usermodel.Workbook) book, path, false);
     }
 
-
-    /* <-------------------------辅助的私有方法-----------------------------------------------> */
-
     /**
-     * @param fieldName 字段名
-     * @param o         对象
-     * @return 字段值
-     * @MethodName : getFieldValueByName
-     * @Description : 根据字段名获取字段值
+     * @param book 工作簿，HSSFWorkbook、XSSFWorkbook、SXSSFWorkbook均可，流式工作簿写完后仍需调用方dispose
+     * @param path 目标文件路径，所在目录必须存在，文件已存在时被替换
+     * @param gzip 是否用gzip压缩，.xls压缩效果明显，.xlsx本身已是zip格式，压缩意义不大
+     * @throws IOException
+     * @MethodName : writeExcel
+     * @Description : 把工作簿写到文件。先通过带缓冲的FileChannel写到同一目录下的临时文件，落盘后再原子地改名为目标文件，
+     * 读取方不会看到写了一半的文件；写出失败时删除临时文件。返回前关闭所有文件句柄
      */
-    private static Object getFieldValueByName(String fieldName, Object o) throws Exception {
-
-        Object value = null;
-        Field field = getFieldByName(fieldName, o.getClass());
-
-        if (field != null) {
-            field.setAccessible(true);
-            value = field.get(o);
-            if (field.getType() == Date.class) {
-                value = DateUtils.parseDate((Date) value, DateUtils.DATE_TIME_FORMAT);
+    public static void writeExcel(org.apache.poi.ss.usermodel.Workbook book, String path, boolean gzip)
+            throws IOException {
+        Path target = Paths.get(path).toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName() + ".", ".tmp");
+        boolean moved = false;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = fileOutputStream(channel, gzip)) {
+                // 2007格式的工作簿写完后会关闭流，这里要等落盘后再关闭
+                book.write(new NonClosingOutputStream(out));
+                if (out instanceof GZIPOutputStream) {
+                    ((GZIPOutputStream) out).finish();
+                }
+                out.flush();
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
             }
-        } else {
-            throw new Exception(o.getClass().getSimpleName() + "类不存在字段名 " + fieldName);
         }
-
-        return value;
     }
 
     /**
-     * @param fieldName 字段名
-     * @param clazz     包含该字段的类
-     * @return 字段
-     * @MethodName : getFieldByName
-     * @Description : 根据字段名获取字段
+     * @return 写入channel的缓冲流，关闭时同时关闭channel
      */
-    private static Field getFieldByName(String fieldName, Class<?> clazz) {
-        // 拿到本类的所有字段
-        Field[] selfFields = clazz.getDeclaredFields();
-
-        // 如果本类中存在该字段，则返回
-        for (Field field : selfFields) {
-            if (field.getName().equals(fieldName)) {
-                return field;
-            }
-        }
+    private static OutputStream fileOutputStream(FileChannel channel, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), FILE_BUFFER_SIZE);
+        return gzip ? new GZIPOutputStream(out, FILE_BUFFER_SIZE) : out;
+    }
 
-        // 否则，查看父类中是否存在此字段，如果有则返回
-        Class<?> superClazz = clazz.getSuperclass();
-        if (superClazz != null && superClazz != Object.class) {
-            return getFieldByName(fieldName, superClazz);
-        }
 
-        // 如果本类和父类都没有，则返回空
-        return null;
-    }
+    /* <-------------------------辅助的私有方法-----------------------------------------------> */
 
     /**
      * @param fieldNameSequence 带路径的属性名或简单属性名
@@ -517,65 +1056,16 @@ public class ExcelUtils {
      * @throws Exception
      * @MethodName : getFieldValueByNameSequence
      * @Description : 根据带路径或不带路径的属性名获取属性值 即接受简单属性名，如userName等，又接受带路径的属性名，如student.department.name等
+     * 路径按(类, 属性名)编译一次后缓存，中间某一级为null时返回null
      */
-    private static Object getFieldValueByNameSequence(String fieldNameSequence, Object o) throws Exception {
-
-        Object value = null;
+    static Object getFieldValueByNameSequence(String fieldNameSequence, Object o) throws Exception {
 
-        // 将fieldNameSequence进行拆分
-        String[] attributes = fieldNameSequence.split("\\.");
-        if (attributes.length == 1) {
-            value = getFieldValueByName(fieldNameSequence, o);
-        } else {
-            // 根据属性名获取属性对象
-            Object fieldObj = getFieldValueByName(attributes[0], o);
-            String subFieldNameSequence = fieldNameSequence.substring(fieldNameSequence.indexOf(".") + 1);
-            value = getFieldValueByNameSequence(subFieldNameSequence, fieldObj);
+        FieldAccessors.Getter getter = FieldAccessors.getter(o.getClass(), fieldNameSequence);
+        Object value = getter.get(o);
+        if (value != null && getter.getType(o) == Date.class) {
+            value = DateUtils.parseDate((Date) value, DateUtils.DATE_TIME_FORMAT);
         }
         return value;
-
-    }
-
-    /**
-     * @param fieldName  字段名
-     * @param fieldValue 字段值
-     * @param o          对象
-     * @MethodName : setFieldValueByName
-     * @Description : 根据字段名给对象的字段赋值
-     */
-    private static void setFieldValueByName(String fieldName, Object fieldValue, Object o) throws Exception {
-
-        Field field = getFieldByName(fieldName, o.getClass());
-        if (field != null) {
-            field.setAccessible(true);
-            // 获取字段类型
-            Class<?> fieldType = field.getType();
-
-            // 根据字段类型给字段赋值
-            if (String.class == fieldType) {
-                field.set(o, String.valueOf(fieldValue));
-            } else if ((Integer.TYPE == fieldType) || (Integer.class == fieldType)) {
-                field.set(o, Integer.parseInt(fieldValue.toString()));
-            } else if ((Long.TYPE == fieldType) || (Long.class == fieldType)) {
-                field.set(o, Long.valueOf(fieldValue.toString()));
-            } else if ((Float.TYPE == fieldType) || (Float.class == fieldType)) {
-                field.set(o, Float.valueOf(fieldValue.toString()));
-            } else if ((Short.TYPE == fieldType) || (Short.class == fieldType)) {
-                field.set(o, Short.valueOf(fieldValue.toString()));
-            } else if ((Double.TYPE == fieldType) || (Double.class == fieldType)) {
-                field.set(o, Double.valueOf(fieldValue.toString()));
-            } else if (Character.TYPE == fieldType) {
-                if ((fieldValue != null) && (fieldValue.toString().length() > 0)) {
-                    field.set(o, Character.valueOf(fieldValue.toString().charAt(0)));
-                }
-            } else if (Date.class == fieldType) {
-                field.set(o, parseDate(fieldValue.toString()));
-            } else {
-                field.set(o, fieldValue);
-            }
-        } else {
-            throw new Exception(o.getClass().getSimpleName() + "类不存在字段名 " + fieldName);
-        }
     }
 
     /**
@@ -586,58 +1076,57 @@ public class ExcelUtils {
         if (str == null) {
             return null;
         }
-        try {
-            return DateUtils.parseDate(str.toString(), parsePatterns[0]);
-        } catch (Exception e) {
-            return null;
-        }
+        long millis = DateUtils.parseEpochMillis(str.toString(), parsePatterns[0]);
+        return millis == DateUtils.INVALID_MILLIS ? null : new Date(millis);
     }
 
     /**
-     * @param ws
+     * @param ws        工作表
+     * @param widths    写入时统计的每列最宽单元格的宽度
+     * @param extraWith 额外宽度
      * @MethodName : setColumnAutoSize
-     * @Description : 设置工作表自动列宽和首行加粗
+     * @Description : 设置工作表自动列宽
      */
-    private static void setColumnAutoSize(WritableSheet ws, int extraWith) {
-        // 获取本列的最宽单元格的宽度
-        for (int i = 0; i < ws.getColumns(); i++) {
-            int colWith = 0;
-            for (int j = 0; j < ws.getRows(); j++) {
-                String content = ws.getCell(i, j).getContents().toString();
-                int cellWith = content.length();
-                if (colWith < cellWith) {
-                    colWith = cellWith;
-                }
-            }
+    private static void setColumnAutoSize(WritableSheet ws, ColumnWidthTracker widths, int extraWith) {
+        for (int i = 0; i < widths.getColumns(); i++) {
             // 设置单元格的宽度为最宽宽度+额外宽度
-            ws.setColumnView(i, colWith + extraWith);
+            ws.setColumnView(i, widths.getWidth(i) + extraWith);
         }
+    }
 
+    /**
+     * @param sheet     流式工作表
+     * @param widths    写入时统计的每列最宽单元格的宽度
+     * @param extraWith 额外宽度
+     * @MethodName : setColumnAutoSize
+     * @Description : 设置流式工作表自动列宽，Excel的列宽单位为1/256个字符，最宽255个字符
+     */
+    private static void setColumnAutoSize(org.apache.poi.ss.usermodel.Sheet sheet, ColumnWidthTracker widths,
+                                          int extraWith) {
+        for (int i = 0; i < widths.getColumns(); i++) {
+            sheet.setColumnWidth(i, Math.min(widths.getWidth(i) + extraWith, 255) * 256);
+        }
     }
 
     /**
      * @param sheet      工作表
-     * @param list       数据源
-     * @param fieldMap   中英文字段对应关系的Map
-     * @param firstIndex 开始索引
-     * @param lastIndex  结束索引
+     * @param rows       按fieldMap转换好的单元格数据
+     * @param sheetSize  工作表中记录的最大个数，写满或数据取完为止
+     * @param sampleRows 自动列宽采样的数据行数，小于1时统计所有行
+     * @param dateFormat 日期单元格的格式，只写文本时为null
+     * @param metrics    导出的统计
      * @MethodName : fillSheet
      * @Description : 向工作表中填充数据
      */
-    private static <T> void fillSheet(WritableSheet sheet, List<T> list, LinkedHashMap<String, String> fieldMap,
-                                      int firstIndex, int lastIndex) throws Exception {
+    private static void fillSheet(WritableSheet sheet, CellRows<?> rows, int sheetSize, int sampleRows,
+                                  WritableCellFormat dateFormat, ExcelMetrics metrics) throws Exception {
 
-        // 定义存放英文字段名和中文字段名的数组
-        String[] enFields = new String[fieldMap.size()];
-        String[] cnFields = new String[fieldMap.size()];
+        String[] cnFields = rows.getHeaders();
+
+        // 每列最宽单元格的宽度在写入时同步统计
+        ColumnWidthTracker widths = new ColumnWidthTracker(cnFields.length, sampleRows);
+        widths.measureHeader(cnFields);
 
-        // 填充数组
-        int count = 0;
-        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-            enFields[count] = entry.getKey();
-            cnFields[count] = entry.getValue();
-            count++;
-        }
         // 填充表头
         for (int i = 0; i < cnFields.length; i++) {
             Label label = new Label(i, 0, cnFields[i]);
@@ -646,21 +1135,601 @@ public class ExcelUtils {
 
         // 填充内容
         int rowNo = 1;
-        for (int index = firstIndex; index <= lastIndex; index++) {
-            // 获取单个对象
-            T item = list.get(index);
-            for (int i = 0; i < enFields.length; i++) {
-                Object objValue = getFieldValueByNameSequence(enFields[i], item);
-                String fieldValue = objValue == null ? "" : objValue.toString();
-                Label label = new Label(i, rowNo, fieldValue);
-                sheet.addCell(label);
+        while (rowNo <= sheetSize && rows.hasNext()) {
+            Object[] values = rows.next();
+            long start = metrics.tick();
+            boolean measuring = widths.isMeasuring();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof String) {
+                    sheet.addCell(new Label(i, rowNo, (String) value));
+                } else if (value instanceof Number) {
+                    sheet.addCell(new jxl.write.Number(i, rowNo, ((Number) value).doubleValue()));
+                } else if (value instanceof Date) {
+                    sheet.addCell(new DateTime(i, rowNo, (Date) value, dateFormat));
+                } else {
+                    sheet.addCell(new jxl.write.Boolean(i, rowNo, (Boolean) value));
+                }
+                if (measuring) {
+                    widths.measure(i, rows.displayText(value));
+                }
+            }
+            widths.endRow();
+            metrics.add(ExcelMetrics.Phase.WRITE, start);
+
+            rowNo++;
+        }
+        metrics.addRows(rowNo - 1);
+
+        // 设置自动列宽
+        long start = metrics.tick();
+        setColumnAutoSize(sheet, widths, 5);
+        metrics.add(ExcelMetrics.Phase.AUTO_SIZE, start);
+    }
+
+    /**
+     * @param sheet      流式工作表
+     * @param rows       按fieldMap转换好的单元格数据
+     * @param sheetSize  工作表中记录的最大个数，写满或数据取完为止
+     * @param sampleRows 自动列宽采样的数据行数，小于1时统计所有行
+     * @param dateStyle  日期单元格的样式，只写文本时为null
+     * @param metrics    导出的统计
+     * @return 写入的数据行数
+     * @MethodName : fillXlsxSheet
+     * @Description : 向流式工作表中填充数据，已刷出的行不能再读取，所以列宽在写入时同步统计
+     */
+    private static int fillXlsxSheet(org.apache.poi.ss.usermodel.Sheet sheet, CellRows<?> rows, int sheetSize,
+                                     int sampleRows, CellStyle dateStyle, ExcelMetrics metrics) throws Exception {
+
+        String[] cnFields = rows.getHeaders();
+
+        ColumnWidthTracker widths = new ColumnWidthTracker(cnFields.length, sampleRows);
+        widths.measureHeader(cnFields);
+
+        // 填充表头
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < cnFields.length; i++) {
+            header.createCell(i).setCellValue(cnFields[i]);
+        }
+
+        // 填充内容
+        int rowNo = 1;
+        while (rowNo <= sheetSize && rows.hasNext()) {
+            Object[] values = rows.next();
+            long start = metrics.tick();
+            Row row = sheet.createRow(rowNo);
+            boolean measuring = widths.isMeasuring();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                org.apache.poi.ss.usermodel.Cell cell = row.createCell(i);
+                if (value instanceof String) {
+                    cell.setCellValue((String) value);
+                } else if (value instanceof Number) {
+                    cell.setCellValue(((Number) value).doubleValue());
+                } else if (value instanceof Date) {
+                    cell.setCellValue((Date) value);
+                    cell.setCellStyle(dateStyle);
+                } else {
+                    cell.setCellValue((Boolean) value);
+                }
+                if (measuring) {
+                    widths.measure(i, rows.displayText(value));
+                }
             }
+            widths.endRow();
+            metrics.add(ExcelMetrics.Phase.WRITE, start);
 
             rowNo++;
         }
+        metrics.addRows(rowNo - 1);
 
         // 设置自动列宽
-        setColumnAutoSize(sheet, 5);
+        long start = metrics.tick();
+        setColumnAutoSize(sheet, widths, 5);
+        metrics.add(ExcelMetrics.Phase.AUTO_SIZE, start);
+        return rowNo - 1;
+    }
+
+    /**
+     * @Description : 按fieldMap把数据源中的对象逐行转换为单元格数据。
+     * 设置了线程池时，在当前线程按块从数据源取数据，交给线程池并行转换，再按原来的顺序输出；
+     * 同时在转换的块数有上限，内存中最多保留 (并行度+1) * 块大小 行数据
+     */
+    private static class CellRows<T> implements Closeable {
+        private final Iterator<T> source;
+        private final String[] enFields;
+        private final String[] cnFields;
+        private final Executor executor;
+        private final int chunkSize;
+        private final int maxPendingChunks;
+        private final boolean nativeTypes;
+        private final String datePattern;
+        private final StringCache strings;
+        private final ExcelMetrics metrics;
+        private final Deque<CompletableFuture<Object[][]>> pending = new ArrayDeque<>();
+        private Object[][] chunk;
+        private int chunkIndex;
+        private int bufferedRows;
+        private int peakBufferedRows;
+
+        CellRows(Iterator<T> source, LinkedHashMap<String, String> fieldMap, ExcelExportOptions options,
+                 ExcelMetrics metrics) {
+            this.source = source;
+            this.enFields = new String[fieldMap.size()];
+            this.cnFields = new String[fieldMap.size()];
+            int count = 0;
+            for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+                enFields[count] = entry.getKey();
+                cnFields[count] = entry.getValue();
+                count++;
+            }
+            this.executor = options.getExecutor();
+            this.chunkSize = Math.max(1, options.getParallelChunkSize());
+            this.maxPendingChunks = options.getParallelism() + 1;
+            this.nativeTypes = options.isNativeCellTypes();
+            this.datePattern = options.getDatePattern();
+            this.strings = options.getStringCacheSize() > 0 ? new StringCache(options.getStringCacheSize()) : null;
+            this.metrics = metrics;
+        }
+
+        String[] getHeaders() {
+            return cnFields;
+        }
+
+        /**
+         * @return 并行转换时已转换、还没写入的最多行数，顺序转换时为0
+         */
+        int getPeakBufferedRows() {
+            return peakBufferedRows;
+        }
+
+        /**
+         * @return 单元格显示的文本，只用于统计列宽，日期按格式的长度计算
+         */
+        CharSequence displayText(Object value) {
+            if (value instanceof String) {
+                return (String) value;
+            }
+            if (value instanceof Date) {
+                return datePattern;
+            }
+            if (value instanceof Double || value instanceof Float) {
+                double d = ((Number) value).doubleValue();
+                if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+                    return Long.toString((long) d);
+                }
+            }
+            return value.toString();
+        }
+
+        boolean hasNext() {
+            if (executor == null) {
+                return source.hasNext();
+            }
+            if (chunk != null && chunkIndex < chunk.length) {
+                return true;
+            }
+            submitChunks();
+            return !pending.isEmpty();
+        }
+
+        Object[] next() throws Exception {
+            if (executor == null) {
+                long start = metrics.tick();
+                Object[] values = convert(source.next());
+                metrics.add(ExcelMetrics.Phase.CONVERT, start);
+                return values;
+            }
+            if (chunk == null || chunkIndex >= chunk.length) {
+                submitChunks();
+                chunk = await(pending.poll());
+                chunkIndex = 0;
+            }
+            Object[] values = chunk[chunkIndex];
+            // 已输出的行不再持有，尽早回收
+            chunk[chunkIndex++] = null;
+            bufferedRows--;
+            return values;
+        }
+
+        private void submitChunks() {
+            while (pending.size() < maxPendingChunks && source.hasNext()) {
+                List<T> items = new ArrayList<>(chunkSize);
+                while (items.size() < chunkSize && source.hasNext()) {
+                    items.add(source.next());
+                }
+                pending.add(CompletableFuture.supplyAsync(() -> convertAll(items), executor));
+                bufferedRows += items.size();
+                peakBufferedRows = Math.max(peakBufferedRows, bufferedRows);
+            }
+        }
+
+        /**
+         * 在线程池中执行，转换耗时按各线程之和统计
+         */
+        private Object[][] convertAll(List<T> items) {
+            long start = metrics.tick();
+            Object[][] values = new Object[items.size()][];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = convert(items.get(i));
+                }
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            metrics.add(ExcelMetrics.Phase.CONVERT, start);
+            return values;
+        }
+
+        private Object[] convert(T item) throws Exception {
+            Object[] values = new Object[enFields.length];
+            for (int i = 0; i < enFields.length; i++) {
+                if (nativeTypes) {
+                    values[i] = toCellValue(FieldAccessors.getter(item.getClass(), enFields[i]).get(item));
+                } else {
+                    Object objValue = getFieldValueByNameSequence(enFields[i], item);
+                    values[i] = objValue == null ? "" : objValue.toString();
+                }
+                if (strings != null && values[i] instanceof String) {
+                    values[i] = strings.intern((String) values[i]);
+                }
+            }
+            return values;
+        }
+
+        /**
+         * @return 能被Excel准确表示的数字、日期、布尔值原样返回，其余转成文本
+         */
+        private static Object toCellValue(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte
+                    || value instanceof Boolean || value instanceof Date) {
+                return value;
+            }
+            if (value instanceof Double || value instanceof Float) {
+                double d = ((Number) value).doubleValue();
+                return Double.isNaN(d) || Double.isInfinite(d) ? value.toString() : value;
+            }
+            if (value instanceof Long) {
+                // 超过2^53的长整数（如流水号）转成double会丢失精度
+                long l = (Long) value;
+                return l >= -MAX_EXACT_LONG && l <= MAX_EXACT_LONG ? value : value.toString();
+            }
+            if (value instanceof BigDecimal) {
+                BigDecimal decimal = ((BigDecimal) value).stripTrailingZeros();
+                return decimal.precision() <= 15 ? value : decimal.toPlainString();
+            }
+            if (value instanceof BigInteger) {
+                return ((BigInteger) value).bitLength() <= 53 ? value : value.toString();
+            }
+            if (value instanceof LocalDateTime) {
+                return Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant());
+            }
+            if (value instanceof LocalDate) {
+                return Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+            return value.toString();
+        }
+
+        private static Object[][] await(CompletableFuture<Object[][]> future) throws Exception {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 导出失败时取消还没开始的转换
+         */
+        @Override
+        public void close() {
+            for (CompletableFuture<Object[][]> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * @Description : 导入时把一行单元格内容转换为对象，列号和属性在创建时确定，可以被多个线程同时使用
+     */
+    private static class EntityRows<T> {
+        private final Class<T> entityClass;
+        private final String[] cnFields;
+        private final CellConverters.Binding[] bindings;
+        private final int[] cols;
+        private final boolean collectErrors;
+
+        EntityRows(Class<T> entityClass, LinkedHashMap<String, String> fieldMap, Map<String, Integer> colMap,
+                   boolean collectErrors) throws Exception {
+            this.entityClass = entityClass;
+            this.cnFields = new String[fieldMap.size()];
+            this.bindings = new CellConverters.Binding[fieldMap.size()];
+            this.cols = new int[fieldMap.size()];
+            int count = 0;
+            for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+                cnFields[count] = entry.getKey();
+                bindings[count] = CellConverters.bind(entityClass, entry.getValue());
+                cols[count] = colMap.get(entry.getKey());
+                count++;
+            }
+            this.collectErrors = collectErrors;
+        }
+
+        /**
+         * @return 第row行需要的单元格内容，顺序同fieldMap
+         */
+        String[] contents(Sheet sheet, int row) {
+            String[] contents = new String[cols.length];
+            for (int i = 0; i < cols.length; i++) {
+                contents[i] = sheet.getCell(cols[i], row).getContents().trim();
+            }
+            return contents;
+        }
+
+        /**
+         * @param rowNo    行号，用于提示
+         * @param contents 单元格内容
+         * @param errors   收集转换失败的单元格
+         * @return 转换后的对象，有单元格转换失败时返回null
+         */
+        T convert(int rowNo, String[] contents, List<ExcelImportError> errors) throws Exception {
+            T entity = entityClass.newInstance();
+            boolean failed = false;
+            for (int i = 0; i < bindings.length; i++) {
+                try {
+                    bindings[i].set(entity, contents[i]);
+                } catch (Exception e) {
+                    if (!collectErrors) {
+                        throw e;
+                    }
+                    errors.add(new ExcelImportError(rowNo, cnFields[i], contents[i], errorMessage(e)));
+                    failed = true;
+                }
+            }
+            return failed ? null : entity;
+        }
+
+        EntityChunk<T> convertAll(int firstRowNo, String[][] contents) {
+            EntityChunk<T> chunk = new EntityChunk<>(contents.length);
+            try {
+                for (int i = 0; i < contents.length; i++) {
+                    T entity = convert(firstRowNo + i, contents[i], chunk.errors);
+                    if (entity != null) {
+                        chunk.entities.add(entity);
+                    }
+                }
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            return chunk;
+        }
+
+        private static String errorMessage(Exception e) {
+            if (e instanceof NumberFormatException) {
+                return "不是有效的数字";
+            }
+            return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        }
+    }
+
+    private static class EntityChunk<T> {
+        private final List<T> entities;
+        private final List<ExcelImportError> errors = new ArrayList<>();
+
+        EntityChunk(int size) {
+            this.entities = new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * @Description : 流式导入时逐行处理：第一行为列头，遇到空行结束（同excelToList的有效行数），
+     * 其余每行检查重复后转化为对象，凑满一批交给consumer
+     */
+    private static class BatchImportHandler<T> implements ExcelRowVisitor {
+        private final Class<T> entityClass;
+        private final LinkedHashMap<String, String> fieldMap;
+        private final String[] uniqueFields;
+        private final int batchSize;
+        private final Consumer<List<T>> consumer;
+        private final ExcelMetrics metrics;
+
+        private CellConverters.Binding[] bindings;
+        private int[] fieldCols;
+        private int[] uniqueCols;
+        private DuplicateRowDetector detector;
+        private List<T> batch;
+        private int count;
+        private int lastRowNum = -1;
+        private boolean ended;
+
+        BatchImportHandler(Class<T> entityClass, LinkedHashMap<String, String> fieldMap, String[] uniqueFields,
+                           int batchSize, Consumer<List<T>> consumer, ExcelMetrics metrics) {
+            this.entityClass = entityClass;
+            this.fieldMap = fieldMap;
+            this.uniqueFields = uniqueFields;
+            this.batchSize = Math.max(1, batchSize);
+            this.consumer = consumer;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void visit(ExcelRow row) throws Exception {
+            int rowNum = row.getRowNum();
+            if (ended) {
+                return;
+            }
+            if (bindings == null) {
+                readHeader(row);
+                lastRowNum = rowNum;
+                return;
+            }
+            // 中间缺的行也是空行
+            if (rowNum > lastRowNum + 1 || isEmptyRow(row)) {
+                ended = true;
+                return;
+            }
+            lastRowNum = rowNum;
+
+            long start = metrics.tick();
+            if (detector != null) {
+                String[] keyParts = new String[uniqueCols.length];
+                for (int j = 0; j < uniqueCols.length; j++) {
+                    keyParts[j] = row.getString(uniqueCols[j]);
+                }
+                detector.add(keyParts, rowNum + 1);
+                start = metrics.add(ExcelMetrics.Phase.DEDUP, start);
+                // 已有重复行时不再转化，只继续找出其余重复行
+                if (detector.hasDuplicates()) {
+                    return;
+                }
+            }
+
+            T entity = entityClass.newInstance();
+            for (int i = 0; i < bindings.length; i++) {
+                bindings[i].set(entity, row.getString(fieldCols[i]).trim());
+            }
+            batch.add(entity);
+            count++;
+            start = metrics.add(ExcelMetrics.Phase.CONVERT, start);
+            if (batch.size() >= batchSize) {
+                accept();
+                metrics.add(ExcelMetrics.Phase.CONSUME, start);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        /**
+         * @return 转化的行数
+         */
+        int finish() throws Exception {
+            if (detector != null && detector.hasDuplicates()) {
+                throw new Exception("Excel中有重复行，请检查：" + detector.getMessage());
+            }
+            if (batch != null && !batch.isEmpty()) {
+                long start = metrics.tick();
+                accept();
+                metrics.add(ExcelMetrics.Phase.CONSUME, start);
+                batch = null;
+            }
+            metrics.addRows(count);
+            return count;
+        }
+
+        private void accept() {
+            // 内存中最多保留一批对象
+            metrics.buffered(batch.size());
+            consumer.accept(batch);
+        }
+
+        private void readHeader(ExcelRow row) throws Exception {
+            // 将列名和列号放入Map中,这样通过列名就可以拿到列号
+            Map<String, Integer> colMap = new HashMap<>();
+            for (int i = 0; i < row.size(); i++) {
+                if (row.get(i) != null) {
+                    colMap.put(row.getString(i).trim(), i);
+                }
+            }
+
+            CellConverters.Binding[] bindings = new CellConverters.Binding[fieldMap.size()];
+            fieldCols = new int[fieldMap.size()];
+            int count = 0;
+            for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
+                Integer col = colMap.get(entry.getKey());
+                if (col == null) {
+                    throw new Exception("Excel中缺少必要的字段，或字段名称有误");
+                }
+                bindings[count] = CellConverters.bind(entityClass, entry.getValue());
+                fieldCols[count] = col;
+                count++;
+            }
+
+            if (uniqueFields != null && uniqueFields.length > 0) {
+                uniqueCols = new int[uniqueFields.length];
+                for (int i = 0; i < uniqueFields.length; i++) {
+                    Integer col = colMap.get(uniqueFields[i]);
+                    if (col == null) {
+                        throw new Exception("Excel中缺少必要的字段，或字段名称有误");
+                    }
+                    uniqueCols[i] = col;
+                }
+                detector = new DuplicateRowDetector();
+            }
+            batch = new ArrayList<>(batchSize);
+            this.bindings = bindings;
+        }
+
+        private static boolean isEmptyRow(ExcelRow row) {
+            for (int i = 0; i < row.size(); i++) {
+                Object value = row.get(i);
+                if (value != null && !"".equals(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @Description : 关闭时只刷出缓冲、不关闭下层流的输出流
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * @Description : 把分页加载的数据包装成迭代器，当前页取完后才加载下一页
+     */
+    private static class PageIterator<T> implements Iterator<T> {
+        private final IntFunction<List<T>> pageLoader;
+        private int pageNo = 0;
+        private Iterator<T> current = Collections.emptyIterator();
+        private boolean finished = false;
+
+        PageIterator(IntFunction<List<T>> pageLoader) {
+            this.pageLoader = pageLoader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !finished) {
+                List<T> page = pageLoader.apply(pageNo++);
+                if (page == null || page.isEmpty()) {
+                    finished = true;
+                } else {
+                    current = page.iterator();
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
     }
 
 }
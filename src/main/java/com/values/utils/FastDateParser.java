@@ -0,0 +1,319 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved.
+ * WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ */
+package com.values.utils;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * @Description 定长数字格式（如yyyyMMdd、yyyy-MM-dd、yyyy-MM-dd HH:mm:ss、yyMMddHHmmssSSS）的日期解析，
+ * 直接按字符计算，不抛异常、不创建对象（除了取默认时区）。结果与SimpleDateFormat.parse完全相同：
+ * 文本严格符合格式时直接算出毫秒数，肯定解析不了的文本（如空串、字母开头）返回INVALID，
+ * 其余SimpleDateFormat可能宽松处理的情况（如2020-1-5、2月30日、前后有空格、夏令时跳过的时间）返回UNHANDLED，由调用方交给通用解析
+ */
+final class FastDateParser {
+    /**
+     * 解析失败
+     */
+    static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * 快速解析无法确定结果，需要通用解析
+     */
+    static final long UNHANDLED = Long.MIN_VALUE + 1;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * 0000-01-01到1970-01-01的天数
+     */
+    private static final long DAYS_0000_TO_1970 = 719528L;
+
+    /**
+     * 两位年份的世纪起点每小时重新计算一次
+     */
+    private static final long CENTURY_REFRESH_MILLIS = 3600000L;
+
+    private static volatile long centuryExpireTime;
+    private static volatile int centuryStartYear;
+
+    private static final char YEAR = 'y';
+    private static final char MONTH = 'M';
+    private static final char DAY = 'd';
+    private static final char HOUR = 'H';
+    private static final char MINUTE = 'm';
+    private static final char SECOND = 's';
+    private static final char MILLI = 'S';
+
+    /**
+     * 格式中的每个字符：字段字母表示一位数字，其余为原样匹配的分隔符
+     */
+    private final char[] template;
+    private final boolean twoDigitYear;
+
+    private FastDateParser(char[] template, boolean twoDigitYear) {
+        this.template = template;
+        this.twoDigitYear = twoDigitYear;
+    }
+
+    /**
+     * @param pattern SimpleDateFormat的格式
+     * @return 只含年（两位或四位）、两位的月日时分秒、三位毫秒和分隔符，且包含年月日时返回解析器，否则返回null
+     */
+    static FastDateParser of(String pattern) {
+        char[] template = pattern.toCharArray();
+        int fields = 0;
+        boolean twoDigitYear = false;
+        int i = 0;
+        while (i < template.length) {
+            char c = template[i];
+            int end = i + 1;
+            while (end < template.length && template[end] == c) {
+                end++;
+            }
+            int count = end - i;
+            int field = fieldIndex(c);
+            if (field >= 0) {
+                boolean twoDigits = c == YEAR && count == 2;
+                if ((fields & (1 << field)) != 0 || count != width(c) && !twoDigits) {
+                    return null;
+                }
+                twoDigitYear |= twoDigits;
+                fields |= 1 << field;
+            } else if (Character.isLetterOrDigit(c) || c == '\'' || Character.isWhitespace(c) && c != ' ') {
+                return null;
+            }
+            i = end;
+        }
+        int required = (1 << fieldIndex(YEAR)) | (1 << fieldIndex(MONTH)) | (1 << fieldIndex(DAY));
+        return (fields & required) == required ? new FastDateParser(template, twoDigitYear) : null;
+    }
+
+    boolean isTwoDigitYear() {
+        return twoDigitYear;
+    }
+
+    /**
+     * @param text 日期文本，不能为null
+     * @return 毫秒数，或INVALID、UNHANDLED
+     */
+    long parse(CharSequence text) {
+        int length = text.length();
+        if (length == 0) {
+            return INVALID;
+        }
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int milli = 0;
+        for (int i = 0; i < template.length; i++) {
+            if (i >= length) {
+                // 比格式短的文本SimpleDateFormat可能按较少的位数解析
+                return UNHANDLED;
+            }
+            char c = text.charAt(i);
+            char t = template[i];
+            if (fieldIndex(t) < 0) {
+                if (c != t) {
+                    // 前一个字段会读完所有数字，字母E可能被当作指数
+                    return isLetter(c) && c != 'E' && c != 'e' ? INVALID : UNHANDLED;
+                }
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                // 字段第一位就是字母时肯定无法解析，相连字段中间的字母会影响前面字段的位数，交给通用解析
+                return isLetter(c) && (i == 0 || fieldIndex(template[i - 1]) < 0) ? INVALID : UNHANDLED;
+            }
+            int digit = c - '0';
+            switch (t) {
+                case YEAR:
+                    year = year * 10 + digit;
+                    break;
+                case MONTH:
+                    month = month * 10 + digit;
+                    break;
+                case DAY:
+                    day = day * 10 + digit;
+                    break;
+                case HOUR:
+                    hour = hour * 10 + digit;
+                    break;
+                case MINUTE:
+                    minute = minute * 10 + digit;
+                    break;
+                case SECOND:
+                    second = second * 10 + digit;
+                    break;
+                default:
+                    milli = milli * 10 + digit;
+            }
+        }
+        if (length > template.length) {
+            char next = text.charAt(template.length);
+            if (next >= '0' && next <= '9') {
+                // SimpleDateFormat会把后面的数字也读进最后一个字段
+                return UNHANDLED;
+            }
+        }
+        if (twoDigitYear) {
+            year = fullYear(year);
+            if (year < 0) {
+                return UNHANDLED;
+            }
+        }
+        return toEpochMillis(year, month, day, hour, minute, second, milli);
+    }
+
+    /**
+     * 按默认时区把本地日期时间换算为毫秒数，同SimpleDateFormat（GregorianCalendar）的计算。
+     * 超出范围的值（SimpleDateFormat会顺延）、1583年以前（儒略历）、夏令时切换时不存在或重复的时间返回UNHANDLED
+     */
+    static long toEpochMillis(int year, int month, int day, int hour, int minute, int second, int milli) {
+        if (year < 1583 || year > 9999 || month < 1 || month > 12 || day < 1
+                || day > 28 && day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59
+                || milli < 0 || milli > 999) {
+            return UNHANDLED;
+        }
+        long localMillis = epochDay(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60 + minute) * 60 + second) * 1000L + milli;
+        return localToEpochMillis(localMillis, TimeZone.getDefault());
+    }
+
+    /**
+     * 取前后一天的时差，只有一个与该本地时间一致时结果是确定的
+     *
+     * @param localMillis 本地日期时间按UTC计算的毫秒数
+     * @return 该本地时间在timeZone中的毫秒数，夏令时切换时不存在或重复的本地时间返回UNHANDLED
+     */
+    static long localToEpochMillis(long localMillis, TimeZone timeZone) {
+        long guess = localMillis - timeZone.getRawOffset();
+        int before = timeZone.getOffset(guess - MILLIS_PER_DAY);
+        int after = timeZone.getOffset(guess + MILLIS_PER_DAY);
+        boolean beforeValid = timeZone.getOffset(localMillis - before) == before;
+        if (before == after) {
+            return beforeValid ? localMillis - before : UNHANDLED;
+        }
+        boolean afterValid = timeZone.getOffset(localMillis - after) == after;
+        if (beforeValid == afterValid) {
+            // 都不成立是跳过的时间，都成立是重复的时间，两者的处理方式交给Calendar
+            return UNHANDLED;
+        }
+        return localMillis - (beforeValid ? before : after);
+    }
+
+    /**
+     * @return 公历日期距1970-01-01的天数
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = year;
+        long total = 365 * y;
+        if (y >= 0) {
+            total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+        } else {
+            total -= y / -4 - y / -100 + y / -400;
+        }
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * SimpleDateFormat把两位年份解析为80年前到20年后之间的年份
+     *
+     * @return 四位年份，恰好是起点那一年时（还要比较月日）返回-1
+     */
+    private static int fullYear(int twoDigits) {
+        int startYear = centuryStartYear();
+        int startTwoDigits = startYear % 100;
+        if (twoDigits == startTwoDigits) {
+            return -1;
+        }
+        return startYear / 100 * 100 + twoDigits + (twoDigits < startTwoDigits ? 100 : 0);
+    }
+
+    /**
+     * @return 两位年份的世纪起点，同SimpleDateFormat：当前时间往前80年
+     */
+    static long centuryStart() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, -80);
+        return calendar.getTimeInMillis();
+    }
+
+    private static int centuryStartYear() {
+        long now = System.currentTimeMillis();
+        if (now >= centuryExpireTime) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(centuryStart());
+            centuryStartYear = calendar.get(Calendar.YEAR);
+            centuryExpireTime = now + CENTURY_REFRESH_MILLIS;
+        }
+        return centuryStartYear;
+    }
+
+    private static int fieldIndex(char c) {
+        switch (c) {
+            case YEAR:
+                return 0;
+            case MONTH:
+                return 1;
+            case DAY:
+                return 2;
+            case HOUR:
+                return 3;
+            case MINUTE:
+                return 4;
+            case SECOND:
+                return 5;
+            case MILLI:
+                return 6;
+            default:
+                return -1;
+        }
+    }
+
+    private static int width(char field) {
+        switch (field) {
+            case YEAR:
+                return 4;
+            case MILLI:
+                return 3;
+            default:
+                return 2;
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c > 0x7F && Character.isLetter(c));
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description 字段访问器缓存。属性路径（如college.collegeName）按(类, 路径)只解析一次，编译成MethodHandle后
+ * 在所有行、所有请求之间复用，避免每个单元格都拆分路径、遍历getDeclaredFields和调用setAccessible
+ */
+final class FieldAccessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentMap<String, Getter>> GETTERS =
+            new ClassValue<ConcurrentMap<String, Getter>>() {
+                @Override
+                protected ConcurrentMap<String, Getter> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private static final ClassValue<ConcurrentMap<String, Setter>> SETTERS =
+            new ClassValue<ConcurrentMap<String, Setter>>() {
+                @Override
+                protected ConcurrentMap<String, Setter> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private FieldAccessors() {
+    }
+
+    /**
+     * @param clazz             对象的类
+     * @param fieldNameSequence 带路径的属性名或简单属性名，路径中的每一级按上一级字段的声明类型查找，
+     *                          声明类型（如接口、抽象类、Object）中没有该字段时，取值时按字段值的实际类查找
+     * @return 编译好的取值器
+     * @throws Exception 类或其父类中不存在第一级字段
+     */
+    static Getter getter(Class<?> clazz, String fieldNameSequence) throws Exception {
+        ConcurrentMap<String, Getter> getters = GETTERS.get(clazz);
+        Getter getter = getters.get(fieldNameSequence);
+        if (getter == null) {
+            getter = compileGetter(clazz, fieldNameSequence);
+            Getter existing = getters.putIfAbsent(fieldNameSequence, getter);
+            if (existing != null) {
+                getter = existing;
+            }
+        }
+        return getter;
+    }
+
+    /**
+     * @param clazz     对象的类
+     * @param fieldName 简单属性名
+     * @return 编译好的赋值器
+     * @throws Exception 类或其父类中不存在该字段
+     */
+    static Setter setter(Class<?> clazz, String fieldName) throws Exception {
+        ConcurrentMap<String, Setter> setters = SETTERS.get(clazz);
+        Setter setter = setters.get(fieldName);
+        if (setter == null) {
+            Field field = findField(clazz, fieldName);
+            MethodHandle handle = LOOKUP.unreflectSetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            setter = new Setter(handle.asType(SETTER_TYPE), field.getType(), fieldName);
+            Setter existing = setters.putIfAbsent(fieldName, setter);
+            if (existing != null) {
+                setter = existing;
+            }
+        }
+        return setter;
+    }
+
+    private static Getter compileGetter(Class<?> clazz, String fieldNameSequence) throws Exception {
+        String[] attributes = fieldNameSequence.split("\\.");
+        MethodHandle[] chain = new MethodHandle[attributes.length];
+        Class<?> owner = clazz;
+        for (int i = 0; i < attributes.length; i++) {
+            Field field = i == 0 ? findField(owner, attributes[i]) : lookupField(owner, attributes[i]);
+            if (field == null) {
+                // 其余路径在取值时按上一级字段值的实际类查找，同样按(类, 路径)缓存
+                String rest = String.join(".", Arrays.copyOfRange(attributes, i, attributes.length));
+                return new Getter(Arrays.copyOf(chain, i), null, rest);
+            }
+            MethodHandle handle = LOOKUP.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            chain[i] = handle.asType(GETTER_TYPE);
+            owner = field.getType();
+        }
+        return new Getter(chain, owner, null);
+    }
+
+    /**
+     * 在本类及父类中查找字段，找到后只调用一次setAccessible
+     */
+    private static Field findField(Class<?> clazz, String fieldName) throws Exception {
+        Field field = lookupField(clazz, fieldName);
+        if (field == null) {
+            throw new Exception(clazz.getSimpleName() + "类不存在字段名 " + fieldName);
+        }
+        return field;
+    }
+
+    private static Field lookupField(Class<?> clazz, String fieldName) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(fieldName)) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按属性路径取值，中间某一级为null时返回null
+     */
+    static final class Getter {
+        private final MethodHandle[] chain;
+        private final Class<?> type;
+        /**
+         * 声明类型中找不到的其余路径，为null时整条路径都已编译
+         */
+        private final String rest;
+
+        private Getter(MethodHandle[] chain, Class<?> type, String rest) {
+            this.chain = chain;
+            this.type = type;
+            this.rest = rest;
+        }
+
+        /**
+         * @return 末级字段的声明类型，其余路径按实际类查找时取target中末级字段所在类的声明，中间某一级为null时返回null
+         */
+        Class<?> getType(Object target) throws Exception {
+            if (rest == null) {
+                return type;
+            }
+            Object owner = walk(target);
+            return owner == null ? null : getter(owner.getClass(), rest).getType(owner);
+        }
+
+        Object get(Object target) throws Exception {
+            Object value = walk(target);
+            if (rest == null || value == null) {
+                return value;
+            }
+            return getter(value.getClass(), rest).get(value);
+        }
+
+        private Object walk(Object target) throws Exception {
+            Object value = target;
+            try {
+                for (MethodHandle handle : chain) {
+                    if (value == null) {
+                        return null;
+                    }
+                    value = (Object) handle.invokeExact(value);
+                }
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new Exception(t);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 给简单属性赋值，值的类型必须和字段类型一致（基本类型接受对应的包装类型）
+     */
+    static final class Setter {
+        private final MethodHandle handle;
+        private final Class<?> type;
+        private final String name;
+
+        private Setter(MethodHandle handle, Class<?> type, String name) {
+            this.handle = handle;
+            this.type = type;
+            this.name = name;
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        void set(Object target, Object value) throws Exception {
+            try {
+                handle.invokeExact(target, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new Exception(t);
+            }
+        }
+    }
+}
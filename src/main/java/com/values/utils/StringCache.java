@@ -0,0 +1,51 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.utils;
+
+/**
+ * @Description 有界的字符串去重缓存。按哈希值直接映射到固定大小的槽位，冲突时新值覆盖旧值，
+ * 所以内存占用固定；状态码、机构名、枚举名等重复出现的值只保留一个实例。
+ * 不加锁，多个线程同时使用时最坏情况只是少命中几次
+ */
+final class StringCache {
+    /**
+     * 超过该长度的字符串（如备注）基本不会重复，不放入缓存
+     */
+    private static final int MAX_LENGTH = 64;
+
+    /**
+     * 槽位数的上限，再大时缓存本身比去重节省的内存还多
+     */
+    private static final int MAX_SIZE = 1 << 20;
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param size 槽位数，向上取整为2的幂，范围16到2^20
+     */
+    StringCache(int size) {
+        int capacity = Integer.highestOneBit((Math.max(16, Math.min(MAX_SIZE, size)) - 1) << 1);
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return 缓存中相同内容的字符串，没有时放入并返回value
+     */
+    String intern(String value) {
+        if (value.length() > MAX_LENGTH) {
+            return value;
+        }
+        int h = value.hashCode();
+        int index = (h ^ (h >>> 16)) & mask;
+        String cached = table[index];
+        if (cached != null && cached.equals(value)) {
+            return cached;
+        }
+        table[index] = value;
+        return value;
+    }
+}
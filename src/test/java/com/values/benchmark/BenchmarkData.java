@@ -0,0 +1,209 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.benchmark;
+
+import com.values.utils.ExcelUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 基准测试的数据准备：生成指定行数、列数的对象，以及由ExcelUtils自己导出的.xls/.xlsx文件，
+ * 导入类的基准测试读取的就是导出类的基准测试写出的内容
+ */
+final class BenchmarkData {
+    /**
+     * WideRow的列数上限
+     */
+    static final int MAX_COLUMNS = 100;
+
+    static final String SHEET_NAME = "数据";
+
+    /**
+     * 2003的Excel一个工作表最多65535条记录，超出时listToExcel会分成多个工作表
+     */
+    private static final int XLS_SHEET_SIZE = 65535;
+
+    private static final String[] PREFIXES = {"s", "i", "d", "t"};
+    private static final String[] HEADERS = {"文本", "整数", "小数", "日期"};
+
+    /**
+     * 字符串列中重复出现的取值，模拟状态、机构名等低基数的列
+     */
+    private static final String[] STATUSES = {"待审核", "审核通过", "审核拒绝", "已放款", "已结清", "逾期"};
+
+    private static final long BASE_TIME = 1483200000000L; // 2017-01-01 00:00:00 +08:00
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param columns 列数，5到100，按文本、整数、小数、日期依次轮换
+     * @return WideRow的属性名和列名的对应关系（导出用）
+     */
+    static LinkedHashMap<String, String> exportFieldMap(int columns) {
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        for (int c = 0; c < columns; c++) {
+            fieldMap.put(fieldName(c), header(c));
+        }
+        return fieldMap;
+    }
+
+    /**
+     * @return 列名和WideRow的属性名的对应关系（导入用）
+     */
+    static LinkedHashMap<String, String> importFieldMap(int columns) {
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : exportFieldMap(columns).entrySet()) {
+            fieldMap.put(entry.getValue(), entry.getKey());
+        }
+        return fieldMap;
+    }
+
+    /**
+     * @return 业务主键，第一列每行都不同
+     */
+    static String[] uniqueFields() {
+        return new String[]{header(0)};
+    }
+
+    /**
+     * @param rows    行数
+     * @param columns 需要赋值的列数，其余属性保持默认值
+     */
+    static List<WideRow> wideRows(int rows, int columns) {
+        Field[] fields = new Field[columns];
+        for (int c = 0; c < columns; c++) {
+            try {
+                fields[c] = WideRow.class.getDeclaredField(fieldName(c));
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("列数超出范围：" + columns, e);
+            }
+            fields[c].setAccessible(true);
+        }
+        List<WideRow> list = new ArrayList<>(rows);
+        try {
+            for (int r = 0; r < rows; r++) {
+                WideRow row = new WideRow();
+                for (int c = 0; c < columns; c++) {
+                    fields[c].set(row, value(r, c));
+                }
+                list.add(row);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return list;
+    }
+
+    /**
+     * @param rows  行数
+     * @param depth 嵌套层数，0表示没有child
+     */
+    static List<NestedRow> nestedRows(int rows, int depth) {
+        List<NestedRow> list = new ArrayList<>(rows);
+        for (int r = 0; r < rows; r++) {
+            NestedRow row = null;
+            for (int level = depth; level >= 0; level--) {
+                row = new NestedRow(STATUSES[(r + level) % STATUSES.length], r * 10L + level, row);
+            }
+            list.add(row);
+        }
+        return list;
+    }
+
+    /**
+     * @param depth 嵌套层数
+     * @return 每一层的name、value各一列，最深的属性路径为child.child....name
+     */
+    static LinkedHashMap<String, String> nestedFieldMap(int depth) {
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        StringBuilder path = new StringBuilder();
+        for (int level = 0; level <= depth; level++) {
+            fieldMap.put(path + "name", "名称" + level);
+            fieldMap.put(path + "value", "数值" + level);
+            path.append("child.");
+        }
+        return fieldMap;
+    }
+
+    /**
+     * @return listToExcel导出的.xls文件内容
+     */
+    static byte[] toXls(int rows, int columns) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExcelUtils.listToExcel(wideRows(rows, columns), exportFieldMap(columns), SHEET_NAME, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return listToXlsx导出的.xlsx文件内容
+     */
+    static byte[] toXlsx(int rows, int columns) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExcelUtils.listToXlsx(wideRows(rows, columns), exportFieldMap(columns), SHEET_NAME, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return toXls导出的第一个工作表的名称，分成多个工作表时名称带序号
+     */
+    static String firstXlsSheetName(int rows) {
+        return rows > XLS_SHEET_SIZE ? SHEET_NAME + 1 : SHEET_NAME;
+    }
+
+    private static String fieldName(int column) {
+        return PREFIXES[column % 4] + column / 4;
+    }
+
+    private static String header(int column) {
+        return HEADERS[column % 4] + column / 4;
+    }
+
+    private static Object value(int row, int column) {
+        int group = column / 4;
+        switch (column % 4) {
+            case 0:
+                // 第一列是唯一的编号，其余文本列一半重复一半不重复
+                if (column == 0) {
+                    return "NO" + (10000000 + row);
+                }
+                return (group & 1) == 0 ? STATUSES[(row + group) % STATUSES.length] : "备注" + row + "-" + group;
+            case 1:
+                return row * 31 + group;
+            case 2:
+                return (row % 100000) * 0.01 + group;
+            default:
+                return new Date(BASE_TIME + row * 60000L + group * 86400000L);
+        }
+    }
+
+    /**
+     * 丢弃写入的内容，只记录字节数，避免导出的基准测试中混入内存拷贝的开销
+     */
+    static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
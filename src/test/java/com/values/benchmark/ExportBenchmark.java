@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.benchmark;
+
+import com.values.utils.ExcelUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 导出的基准测试：listToExcel（.xls）和listToXlsx（.xlsx）写出rows行、columns列，
+ * 写出的内容直接丢弃。每次调用导出一个完整的文件，吞吐量以“次/秒”计，
+ * 配合-prof gc可以得到每次导出的分配量（gc.alloc.rate.norm）。
+ * 100万行、100列的组合需要数GB堆内存，可以用-p rows=...缩小范围
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ExportBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"5", "20", "100"})
+    private int columns;
+
+    private List<WideRow> list;
+    private LinkedHashMap<String, String> fieldMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = BenchmarkData.wideRows(rows, columns);
+        fieldMap = BenchmarkData.exportFieldMap(columns);
+    }
+
+    @Benchmark
+    public long listToExcel() throws Exception {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        ExcelUtils.listToExcel(list, fieldMap, BenchmarkData.SHEET_NAME, out);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long listToXlsx() throws Exception {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        ExcelUtils.listToXlsx(list, fieldMap, BenchmarkData.SHEET_NAME, out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.benchmark;
+
+import com.values.utils.ExcelUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 导入的基准测试：读取由listToExcel、listToXlsx导出的rows行、columns列的文件。
+ * 每次调用读取一个完整的文件，吞吐量以“次/秒”计，配合-prof gc可以得到每次读取的分配量。
+ * .xls超过65535行时分成多个工作表，excelToList、excelToMap、readExcel只读取第一个工作表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ImportBenchmark {
+    /**
+     * 分批导入时每批的对象个数
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"5", "20", "100"})
+    private int columns;
+
+    private byte[] xls;
+    private byte[] xlsx;
+    private String xlsSheetName;
+    private LinkedHashMap<String, String> fieldMap;
+    private String[] uniqueFields;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        xls = BenchmarkData.toXls(rows, columns);
+        xlsx = BenchmarkData.toXlsx(rows, columns);
+        xlsSheetName = BenchmarkData.firstXlsSheetName(rows);
+        fieldMap = BenchmarkData.importFieldMap(columns);
+        uniqueFields = BenchmarkData.uniqueFields();
+    }
+
+    @Benchmark
+    public int excelToList() throws Exception {
+        Map<String, Object> result = ExcelUtils.excelToList(new ByteArrayInputStream(xls), xlsSheetName,
+                WideRow.class, fieldMap, uniqueFields);
+        return ((List<?>) result.get("val")).size();
+    }
+
+    @Benchmark
+    public int excelToListBatchXls() throws Exception {
+        return ExcelUtils.excelToList(new ByteArrayInputStream(xls), ExcelUtils.Postfix.XLS, xlsSheetName,
+                WideRow.class, fieldMap, uniqueFields, BATCH_SIZE, batch -> {
+                });
+    }
+
+    @Benchmark
+    public int excelToListBatchXlsx() throws Exception {
+        return ExcelUtils.excelToList(new ByteArrayInputStream(xlsx), ExcelUtils.Postfix.XLSX,
+                BenchmarkData.SHEET_NAME, WideRow.class, fieldMap, uniqueFields, BATCH_SIZE, batch -> {
+                });
+    }
+
+    @Benchmark
+    public int readExcelXls() throws Exception {
+        return ExcelUtils.readExcel(new ByteArrayInputStream(xls), ExcelUtils.Postfix.XLS).size();
+    }
+
+    @Benchmark
+    public int readExcelXlsx() throws Exception {
+        return ExcelUtils.readExcel(new ByteArrayInputStream(xlsx), ExcelUtils.Postfix.XLSX).size();
+    }
+
+    /**
+     * 只遍历行、不构建结果，与readExcelXlsx对比可以看出构建List&lt;Map&gt;的开销
+     */
+    @Benchmark
+    public long readExcelRowsXlsx() throws Exception {
+        long[] cells = new long[1];
+        ExcelUtils.readExcelRows(new ByteArrayInputStream(xlsx), ExcelUtils.Postfix.XLSX,
+                row -> cells[0] += row.size());
+        return cells[0];
+    }
+
+    @Benchmark
+    public int excelToMap() throws Exception {
+        return ExcelUtils.excelToMap(new ByteArrayInputStream(xls), Collections.<String>emptyList()).size();
+    }
+
+    @Benchmark
+    public int excelToMapStreaming() throws Exception {
+        return ExcelUtils.excelToMap(new ByteArrayInputStream(xls), xlsSheetName,
+                Collections.<String>emptyList()).size();
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.benchmark;
+
+import com.values.utils.ExcelUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 多级属性路径的基准测试：fieldMap中每一层各取name、value两列，
+ * depth为8时最深的路径是child.child.child.child.child.child.child.child.name，
+ * 与depth为0的结果对比即可看出按路径逐级取值的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class NestedPathBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    @Param({"0", "2", "8"})
+    private int depth;
+
+    private List<NestedRow> list;
+    private LinkedHashMap<String, String> fieldMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = BenchmarkData.nestedRows(rows, depth);
+        fieldMap = BenchmarkData.nestedFieldMap(depth);
+    }
+
+    @Benchmark
+    public long listToXlsx() throws Exception {
+        BenchmarkData.CountingOutputStream out = new BenchmarkData.CountingOutputStream();
+        ExcelUtils.listToXlsx(list, fieldMap, BenchmarkData.SHEET_NAME, out);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.benchmark;
+
+/**
+ * @Description 基准测试用的嵌套对象，通过child逐层引用，用来测量fieldMap中
+ * 类似child.child.name的多级属性路径的取值开销
+ */
+public class NestedRow {
+    private String name;
+    private long value;
+    private NestedRow child;
+
+    public NestedRow(String name, long value, NestedRow child) {
+        this.name = name;
+        this.value = value;
+        this.child = child;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public NestedRow getChild() {
+        return child;
+    }
+}
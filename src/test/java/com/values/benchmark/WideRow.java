@@ -0,0 +1,22 @@
+/**
+ * Copyright 2016 Welab, Inc. All rights reserved. WELAB PROPRIETARY/CONFIDENTIAL. Use is subject to
+ * license terms.
+ */
+package com.values.benchmark;
+
+import java.util.Date;
+
+/**
+ * @Description 基准测试用的宽行对象，字符串、整数、小数、日期各25列，共100列。
+ * 列的取舍和取值由BenchmarkData通过反射完成，这里不提供getter/setter
+ */
+public class WideRow {
+    private String s0, s1, s2, s3, s4, s5, s6, s7, s8, s9, s10, s11, s12,
+            s13, s14, s15, s16, s17, s18, s19, s20, s21, s22, s23, s24;
+    private int i0, i1, i2, i3, i4, i5, i6, i7, i8, i9, i10, i11, i12,
+            i13, i14, i15, i16, i17, i18, i19, i20, i21, i22, i23, i24;
+    private double d0, d1, d2, d3, d4, d5, d6, d7, d8, d9, d10, d11, d12,
+            d13, d14, d15, d16, d17, d18, d19, d20, d21, d22, d23, d24;
+    private Date t0, t1, t2, t3, t4, t5, t6, t7, t8, t9, t10, t11, t12,
+            t13, t14, t15, t16, t17, t18, t19, t20, t21, t22, t23, t24;
+}
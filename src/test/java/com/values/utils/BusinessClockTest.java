@@ -0,0 +1,69 @@
+package com.values.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BusinessClockTest {
+
+    @After
+    public void restoreSystemClock() {
+        DateUtils.setBusinessClock(null);
+    }
+
+    @Test
+    public void comparesDatesInTheClockZone() {
+        // 东京已是1月2日，上海还是1月1日
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        Instant now = ZonedDateTime.of(2017, 1, 2, 0, 30, 0, 0, tokyo).toInstant();
+        DateUtils.setBusinessClock(BusinessClock.of(Clock.fixed(now, tokyo)));
+
+        Date sameTokyoDay = Date.from(ZonedDateTime.of(2017, 1, 2, 23, 0, 0, 0, tokyo).toInstant());
+        Date previousTokyoDay = Date.from(ZonedDateTime.of(2017, 1, 1, 23, 0, 0, 0, tokyo).toInstant());
+        Date nextTokyoDay = Date.from(ZonedDateTime.of(2017, 1, 3, 0, 0, 0, 0, tokyo).toInstant());
+
+        assertTrue(DateUtils.isEqualsCurrentDate(sameTokyoDay));
+        assertFalse(DateUtils.isAfterCurrentDate(sameTokyoDay));
+        assertFalse(DateUtils.isBeforeCurrentDate(sameTokyoDay));
+        assertTrue(DateUtils.isBeforeCurrentDate(previousTokyoDay));
+        assertTrue(DateUtils.isAfterCurrentDate(nextTokyoDay));
+        assertEquals(1, DateUtils.daysUntilCurrentDate(previousTokyoDay));
+        assertEquals(-1, DateUtils.daysUntilCurrentDate(nextTokyoDay));
+
+        Date oneMinuteLater = Date.from(now.plusSeconds(60));
+        Date oneMinuteEarlier = Date.from(now.minusSeconds(60));
+        assertTrue(DateUtils.isAfterCurrentDateTime(oneMinuteLater));
+        assertFalse(DateUtils.isBeforeCurrentDateTime(oneMinuteLater));
+        assertTrue(DateUtils.isBeforeCurrentDateTime(oneMinuteEarlier));
+        assertTrue(DateUtils.isCurrentDateTimeBetween(oneMinuteEarlier, oneMinuteLater));
+    }
+
+    @Test
+    public void convertsOtherInstantsAcrossDstTransitions() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        Instant now = LocalDateTime.of(2017, 1, 2, 12, 0).atZone(newYork).toInstant();
+        BusinessClock clock = BusinessClock.of(Clock.fixed(now, newYork));
+
+        for (Instant instant : new Instant[]{
+                LocalDateTime.of(2017, 3, 12, 1, 59).atZone(newYork).toInstant(),
+                LocalDateTime.of(2017, 3, 12, 3, 0).atZone(newYork).toInstant(),
+                LocalDateTime.of(2017, 11, 5, 1, 30).atZone(newYork).withLaterOffsetAtOverlap().toInstant(),
+                LocalDateTime.of(1883, 11, 18, 12, 0).atZone(newYork).toInstant(),
+                LocalDateTime.of(2200, 7, 1, 0, 0).atZone(newYork).toInstant()}) {
+            LocalDateTime local = instant.atZone(newYork).toLocalDateTime();
+            assertEquals(local.toLocalDate().toEpochDay(), clock.toEpochDay(instant.toEpochMilli()));
+            assertEquals(local.atZone(ZoneId.of("UTC")).toInstant().toEpochMilli(),
+                    clock.toLocalMillis(instant.toEpochMilli()));
+        }
+    }
+}
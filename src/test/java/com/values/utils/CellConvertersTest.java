@@ -0,0 +1,90 @@
+package com.values.utils;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CellConvertersTest {
+
+    @Test
+    public void parsesValidDates() throws Exception {
+        assertEquals(LocalDate.of(2020, 2, 29), CellConverters.get(LocalDate.class).convert("2020-02-29"));
+        assertEquals(LocalDate.of(2020, 2, 29), CellConverters.get(LocalDate.class).convert("2020/02/29"));
+        assertEquals(LocalDate.of(2020, 2, 29), CellConverters.get(LocalDate.class).convert("2020-02-29 23:59:59"));
+        assertEquals(LocalDateTime.of(2020, 2, 29, 23, 59, 59),
+                CellConverters.get(LocalDateTime.class).convert("2020-02-29 23:59:59"));
+        assertEquals(LocalDateTime.of(2020, 2, 29, 8, 5),
+                CellConverters.get(LocalDateTime.class).convert("2020-02-29 08:05"));
+        assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0),
+                CellConverters.get(LocalDateTime.class).convert("2020/02/29"));
+    }
+
+    @Test
+    public void rejectsDatesThatDoNotExist() {
+        String[] localDates = {"2020-02-30", "2019-02-29", "2020/02/30", "2019/02/29", "2020/04/31", "2020/13/01",
+                "2020-02-30 12:00:00", "1900/02/29"};
+        for (String content : localDates) {
+            assertRejected(LocalDate.class, content);
+        }
+        String[] localDateTimes = {"2020-02-30 12:00:00", "2020-02-30 12:00", "2020/02/30", "2020-04-31 00:00:00",
+                "2020-01-01 24:00:00", "2020-01-01 23:60", "2020-01-01 23:59:60", "2019-02-29 00:00"};
+        for (String content : localDateTimes) {
+            assertRejected(LocalDateTime.class, content);
+        }
+    }
+
+    @Test
+    public void parsesDoublesLikeDoubleValueOf() throws Exception {
+        String[] edges = {"0", "-0", "+0", "0.0", "-0.0", ".5", "5.", "1.1", "0.1", "0.3", "-2.5", "123456789012345",
+                "999999999999999", "1234567890123456", "9007199254740993", "0.000000000000001", "1.000000000000001",
+                "00000000000000001", "1e3", "1E-3", "NaN", "-Infinity", "0x1p3", "1d", "2f"};
+        for (String content : edges) {
+            assertEquals(content, Double.valueOf(content), CellConverters.get(Double.class).convert(content));
+            assertEquals(content, Double.valueOf(content), CellConverters.get(Double.TYPE).convert(content));
+        }
+        Random random = new Random(5);
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder content = new StringBuilder();
+            if (random.nextBoolean()) {
+                content.append('-');
+            }
+            int whole = random.nextInt(10);
+            for (int j = 0; j < whole; j++) {
+                content.append((char) ('0' + random.nextInt(10)));
+            }
+            content.append('.');
+            int fraction = 1 + random.nextInt(12);
+            for (int j = 0; j < fraction; j++) {
+                content.append((char) ('0' + random.nextInt(10)));
+            }
+            String text = content.toString();
+            assertEquals(text, Double.valueOf(text), CellConverters.get(Double.class).convert(text));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedDoubles() {
+        for (String content : new String[]{"", "-", ".", "1.2.3", "1,000", "--1", "abc", "1-2"}) {
+            try {
+                CellConverters.get(Double.class).convert(content);
+                fail(content);
+            } catch (Exception e) {
+                assertEquals(content, NumberFormatException.class, e.getClass());
+            }
+        }
+    }
+
+    private static void assertRejected(Class<?> type, String content) {
+        try {
+            Object value = CellConverters.get(type).convert(content);
+            fail(type.getSimpleName() + " " + content + " -> " + value);
+        } catch (Exception e) {
+            // 不存在的日期时间报错，不调整为月末或次日
+        }
+    }
+}
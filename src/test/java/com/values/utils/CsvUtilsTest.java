@@ -0,0 +1,147 @@
+package com.values.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvUtilsTest {
+
+    @Test
+    public void quotedFieldsRoundTrip() throws Exception {
+        List<Row> rows = Arrays.asList(
+                new Row("a,b", "say \"hi\"", 1),
+                new Row("第一行\r\n第二行", "\"", 2),
+                new Row("", "tab\tinside", 0),
+                new Row("trailing,", "\n", -3));
+
+        for (char delimiter : new char[]{CsvUtils.COMMA, CsvUtils.TAB}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CsvUtils.iteratorToCsv(rows.iterator(), exportFields(), delimiter, false, out);
+            List<Row> read = CsvUtils.csvToList(new ByteArrayInputStream(out.toByteArray()), delimiter, Row.class,
+                    importFields());
+
+            assertEquals(rows.size(), read.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(rows.get(i).text, read.get(i).text);
+                // 导入时去掉首尾空白
+                assertEquals(rows.get(i).note.trim(), read.get(i).note);
+                assertEquals(rows.get(i).amount, read.get(i).amount);
+            }
+        }
+    }
+
+    @Test
+    public void escapedFormulasRoundTripByDefault() throws Exception {
+        List<Row> rows = Arrays.asList(
+                new Row("-5.00", "@cmd", -5),
+                new Row("=1+2", "+SUM(A1)", 0),
+                new Row("'=x", "''@y", 1),
+                new Row("'plain", "a=b", 2),
+                new Row("'", "\t=1", 3));
+
+        for (char delimiter : new char[]{CsvUtils.COMMA, CsvUtils.TAB}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CsvUtils.iteratorToCsv(rows.iterator(), exportFields(), delimiter, out);
+            List<Row> read = CsvUtils.csvToList(new ByteArrayInputStream(out.toByteArray()), delimiter, Row.class,
+                    importFields());
+
+            assertEquals(rows.size(), read.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(rows.get(i).text, read.get(i).text);
+                // 导入时去掉首尾空白
+                assertEquals(rows.get(i).note.trim(), read.get(i).note);
+                assertEquals(rows.get(i).amount, read.get(i).amount);
+            }
+        }
+    }
+
+    @Test
+    public void keepsQuotesWhenUnescapingIsDisabled() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUtils.iteratorToCsv(Collections.singletonList(new Row("-5.00", "'=x", 1)).iterator(), exportFields(),
+                CsvUtils.COMMA, out);
+        List<Row> read = CsvUtils.csvToList(new ByteArrayInputStream(out.toByteArray()), CsvUtils.COMMA, Row.class,
+                importFields(), false);
+
+        assertEquals("'-5.00", read.get(0).text);
+        assertEquals("''=x", read.get(0).note);
+    }
+
+    @Test
+    public void writesQuotesOnlyWhenNeeded() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUtils.iteratorToCsv(Collections.singletonList(new Row("a,b", "x\"y", 7)).iterator(), exportFields(),
+                CsvUtils.COMMA, out);
+
+        assertEquals("\uFEFF文本,备注,数量\r\n\"a,b\",\"x\"\"y\",7\r\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void escapesFormulasByDefault() throws Exception {
+        List<Row> rows = Arrays.asList(
+                new Row("=1+2", "+SUM(A1)", -5),
+                new Row("-2+3", "@cmd", 0),
+                new Row("\t=1", "a=b", 1),
+                new Row("'=1", "'text", 2));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUtils.iteratorToCsv(rows.iterator(), exportFields(), CsvUtils.COMMA, out);
+
+        assertEquals("\uFEFF文本,备注,数量\r\n"
+                        + "'=1+2,'+SUM(A1),-5\r\n"
+                        + "'-2+3,'@cmd,0\r\n"
+                        + "'\t=1,a=b,1\r\n"
+                        + "''=1,'text,2\r\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void keepsFormulasWhenEscapingIsDisabled() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUtils.iteratorToCsv(Collections.singletonList(new Row("=1+2", "@cmd", -5)).iterator(), exportFields(),
+                CsvUtils.COMMA, false, out);
+
+        assertEquals("\uFEFF文本,备注,数量\r\n=1+2,@cmd,-5\r\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static LinkedHashMap<String, String> exportFields() {
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        fieldMap.put("text", "文本");
+        fieldMap.put("note", "备注");
+        fieldMap.put("amount", "数量");
+        return fieldMap;
+    }
+
+    private static LinkedHashMap<String, String> importFields() {
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        fieldMap.put("文本", "text");
+        fieldMap.put("备注", "note");
+        fieldMap.put("数量", "amount");
+        return fieldMap;
+    }
+
+    public static class Row {
+        private String text;
+        private String note;
+        private Integer amount;
+
+        public Row() {
+        }
+
+        Row(String text, String note, Integer amount) {
+            this.text = text;
+            this.note = note;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.values.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class DateUtilsBatchTest {
+
+    /**
+     * 不是PARALLEL_CHUNK_SIZE的整数倍，最后一块不满
+     */
+    private static final int LENGTH = 2 * DateArrays.PARALLEL_CHUNK_SIZE + 123;
+
+    /**
+     * 上海1901年以前java.time与TimeZone的时差不同，纽约和圣保罗有夏令时（圣保罗在0点切换）
+     */
+    private static final String[] ZONES = {"Asia/Shanghai", "America/New_York", "America/Sao_Paulo", "UTC"};
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void restoreDefaultZone() throws Exception {
+        useDefaultZone(defaultZone);
+    }
+
+    @Test
+    public void plusDaysMatchesScalar() throws Exception {
+        for (String id : ZONES) {
+            useDefaultZone(TimeZone.getTimeZone(id));
+            for (boolean parallel : new boolean[]{false, true}) {
+                long[] millis = millis(id, new Random(1));
+                long[] expected = new long[LENGTH];
+                for (int i = 0; i < LENGTH; i++) {
+                    expected[i] = DateUtils.plusDays(new Date(millis[i]), -45).getTime();
+                }
+                long[] out = new long[LENGTH];
+                DateUtils.plusDays(millis, -45, out, parallel);
+                assertArrayEquals(id, expected, out);
+                // 结果写回输入数组
+                DateUtils.plusDays(millis, -45, millis, parallel);
+                assertArrayEquals(id, expected, millis);
+            }
+        }
+
+        int[] days = epochDays(new Random(2));
+        for (boolean parallel : new boolean[]{false, true}) {
+            int[] expected = new int[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                expected[i] = (int) LocalDate.ofEpochDay(days[i]).plusDays(400).toEpochDay();
+            }
+            int[] input = days.clone();
+            DateUtils.plusDays(input, 400, input, parallel);
+            assertEquals(Arrays.toString(expected), Arrays.toString(input));
+        }
+    }
+
+    @Test
+    public void durationInDaysMatchesScalar() throws Exception {
+        for (String id : ZONES) {
+            useDefaultZone(TimeZone.getTimeZone(id));
+            Random random = new Random(3);
+            long[] start = millis(id, random);
+            long[] end = millis(id, random);
+            int[] expected = new int[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                expected[i] = DateUtils.durationInDays(new Date(start[i]), new Date(end[i]));
+            }
+            for (boolean parallel : new boolean[]{false, true}) {
+                int[] out = new int[LENGTH];
+                DateUtils.durationInDays(start, end, out, parallel);
+                assertArrayEquals(id, expected, out);
+            }
+        }
+
+        Random random = new Random(4);
+        int[] startDays = epochDays(random);
+        int[] endDays = epochDays(random);
+        int[] expected = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            expected[i] = (int) ChronoUnit.DAYS.between(LocalDate.ofEpochDay(endDays[i]),
+                    LocalDate.ofEpochDay(startDays[i]));
+        }
+        for (boolean parallel : new boolean[]{false, true}) {
+            int[] out = startDays.clone();
+            DateUtils.durationInDays(out, endDays, out, parallel);
+            assertEquals(Arrays.toString(expected), Arrays.toString(out));
+        }
+    }
+
+    @Test
+    public void calDiffMonthMatchesScalar() throws Exception {
+        for (String id : ZONES) {
+            useDefaultZone(TimeZone.getTimeZone(id));
+            Random random = new Random(5);
+            long[] start = millis(id, random);
+            long[] end = millis(id, random);
+            // 结束日是2月最后一天（闰年和平年），开始日是1月的29到31日，前600个是夏令时切换前后的时间
+            ZoneId zone = ZoneId.of(id);
+            for (int i = 600; i < 2600; i++) {
+                int year = 1550 + random.nextInt(600);
+                LocalDate lastOfFebruary = LocalDate.of(year, 3, 1).minusDays(1);
+                start[i] = LocalDate.of(year - random.nextInt(3), 1, 29 + random.nextInt(3)).atTime(12, 0)
+                        .atZone(zone).toInstant().toEpochMilli();
+                end[i] = lastOfFebruary.atTime(random.nextInt(24), 0).atZone(zone).toInstant().toEpochMilli();
+            }
+            int[] expected = new int[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                expected[i] = DateUtils.calDiffMonth(new Date(start[i]), new Date(end[i]));
+            }
+            for (boolean parallel : new boolean[]{false, true}) {
+                int[] out = new int[LENGTH];
+                DateUtils.calDiffMonth(start, end, out, parallel);
+                assertArrayEquals(id, expected, out);
+            }
+        }
+    }
+
+    @Test
+    public void calDiffMonthOfEpochDaysMatchesScalar() throws Exception {
+        // epoch day没有时区，按UTC中午转换为Date；1583年以前Calendar按儒略历计算日，所以从1583年开始比较
+        useDefaultZone(TimeZone.getTimeZone("UTC"));
+        Random random = new Random(6);
+        int[] startDays = new int[LENGTH];
+        int[] endDays = new int[LENGTH];
+        long first = LocalDate.of(1583, 1, 1).toEpochDay();
+        long last = LocalDate.of(2300, 1, 1).toEpochDay();
+        for (int i = 0; i < LENGTH; i++) {
+            startDays[i] = (int) (first + (long) (random.nextDouble() * (last - first)));
+            endDays[i] = (int) (first + (long) (random.nextDouble() * (last - first)));
+        }
+        for (int i = 0; i < 2000; i++) {
+            int year = 1583 + random.nextInt(700);
+            startDays[i] = (int) LocalDate.of(year, 1, 29 + random.nextInt(3)).toEpochDay();
+            endDays[i] = (int) LocalDate.of(year, 3, 1).minusDays(1).toEpochDay();
+        }
+        int[] expected = new int[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            expected[i] = DateUtils.calDiffMonth(noon(startDays[i]), noon(endDays[i]));
+        }
+        for (boolean parallel : new boolean[]{false, true}) {
+            int[] out = startDays.clone();
+            DateUtils.calDiffMonth(out, endDays, out, parallel);
+            assertEquals(Arrays.toString(expected), Arrays.toString(out));
+        }
+    }
+
+    @Test
+    public void isDateTimeBetweenMatchesScalar() throws Exception {
+        for (String id : ZONES) {
+            useDefaultZone(TimeZone.getTimeZone(id));
+            Random random = new Random(7);
+            long[] target = millis(id, random);
+            long[] start = millis(id, random);
+            long[] end = millis(id, random);
+            long fixedStart = LocalDateTime.of(1900, 6, 1, 0, 0).atZone(ZoneId.of(id)).toInstant().toEpochMilli();
+            long fixedEnd = LocalDateTime.of(2017, 11, 5, 1, 30).atZone(ZoneId.of(id)).toInstant().toEpochMilli();
+            boolean[] expected = new boolean[LENGTH];
+            boolean[] expectedFixed = new boolean[LENGTH];
+            for (int i = 0; i < LENGTH; i++) {
+                expected[i] = DateUtils.isDateTimeBetween(new Date(target[i]), new Date(start[i]),
+                        new Date(end[i]));
+                expectedFixed[i] = DateUtils.isDateTimeBetween(new Date(target[i]), new Date(fixedStart),
+                        new Date(fixedEnd));
+            }
+            for (boolean parallel : new boolean[]{false, true}) {
+                boolean[] out = new boolean[LENGTH];
+                DateUtils.isDateTimeBetween(target, start, end, out, parallel);
+                assertEquals(id, Arrays.toString(expected), Arrays.toString(out));
+                DateUtils.isDateTimeBetween(target, fixedStart, fixedEnd, out, parallel);
+                assertEquals(id, Arrays.toString(expectedFixed), Arrays.toString(out));
+            }
+        }
+    }
+
+    /**
+     * @return 1400年到2200年的随机时刻，前面一部分是夏令时切换前后的时间
+     */
+    private static long[] millis(String id, Random random) {
+        long[] millis = new long[LENGTH];
+        long from = LocalDateTime.of(1400, 1, 1, 0, 0).atZone(ZoneId.of("UTC")).toInstant().toEpochMilli();
+        long to = LocalDateTime.of(2200, 1, 1, 0, 0).atZone(ZoneId.of("UTC")).toInstant().toEpochMilli();
+        for (int i = 0; i < LENGTH; i++) {
+            millis[i] = from + (long) (random.nextDouble() * (to - from));
+        }
+        ZoneId zone = ZoneId.of(id);
+        LocalDateTime[] transitions = {LocalDateTime.of(2017, 3, 12, 2, 30), LocalDateTime.of(2017, 11, 5, 1, 30),
+                LocalDateTime.of(2017, 10, 15, 0, 0), LocalDateTime.of(2018, 2, 17, 23, 30),
+                LocalDateTime.of(1900, 12, 31, 23, 59), LocalDateTime.of(1582, 10, 4, 12, 0)};
+        for (int i = 0; i < 600; i++) {
+            LocalDateTime time = transitions[i % transitions.length].plusMinutes(random.nextInt(240) - 120);
+            millis[i] = time.atZone(zone).toInstant().toEpochMilli();
+        }
+        return millis;
+    }
+
+    /**
+     * @return 1400年到2200年的随机epoch day
+     */
+    private static int[] epochDays(Random random) {
+        int[] days = new int[LENGTH];
+        long from = LocalDate.of(1400, 1, 1).toEpochDay();
+        long to = LocalDate.of(2200, 1, 1).toEpochDay();
+        for (int i = 0; i < LENGTH; i++) {
+            days[i] = (int) (from + (long) (random.nextDouble() * (to - from)));
+        }
+        return days;
+    }
+
+    private static Date noon(int epochDay) {
+        return new Date(epochDay * EpochDays.MILLIS_PER_DAY + EpochDays.MILLIS_PER_DAY / 2);
+    }
+
+    private static void assertArrayEquals(String message, long[] expected, long[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(message + " [" + i + "]", expected[i], actual[i]);
+        }
+    }
+
+    private static void assertArrayEquals(String message, int[] expected, int[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(message + " [" + i + "]", expected[i], actual[i]);
+        }
+    }
+
+    /**
+     * EpochDays每秒最多检查一次默认时区，修改后清掉缓存立即生效
+     */
+    private static void useDefaultZone(TimeZone timeZone) throws Exception {
+        TimeZone.setDefault(timeZone);
+        Field zone = EpochDays.class.getDeclaredField("zone");
+        zone.setAccessible(true);
+        zone.set(null, null);
+    }
+}
@@ -0,0 +1,137 @@
+package com.values.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class DateUtilsParseTest {
+
+    private static final String[] PATTERNS = {"yyyyMMdd", "yyyy-MM-dd", "yyyy-MM-dd HH:mm:ss", "yyMMddHHmmssSSS",
+            "yyyy/MM/dd HH:mm", "yyyy-MM-dd HH:mm:ss.SSS", "dd.MM.yyyy"};
+
+    private static final String[] ZONES = {"Asia/Shanghai", "America/New_York", "America/Sao_Paulo",
+            "Europe/London", "Australia/Lord_Howe", "Pacific/Apia", "UTC"};
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void restoreDefaultZone() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void matchesSimpleDateFormatAroundDstTransitions() {
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            List<LocalDateTime> times = new ArrayList<>();
+            ZoneRules rules = ZoneId.of(zone).getRules();
+            ZoneOffsetTransition transition = rules.nextTransition(Instant.parse("1900-01-01T00:00:00Z"));
+            while (transition != null && transition.getInstant().isBefore(Instant.parse("2100-01-01T00:00:00Z"))) {
+                // 跳过和重复的本地时间前后各两小时，包括0点切换的那天
+                for (int minutes = -120; minutes <= 120; minutes += 30) {
+                    times.add(transition.getDateTimeBefore().plusMinutes(minutes));
+                }
+                transition = rules.nextTransition(transition.getInstant());
+            }
+            assertSameAsSimpleDateFormat(times);
+        }
+    }
+
+    @Test
+    public void matchesSimpleDateFormatForLeapDaysAndOldDates() {
+        List<LocalDateTime> times = new ArrayList<>();
+        for (int year : new int[]{1583, 1600, 1700, 1899, 1900, 1904, 1969, 1970, 2000, 2016, 2100, 2400, 9999}) {
+            times.add(LocalDateTime.of(year, 2, 28, 23, 59, 59));
+            times.add(LocalDateTime.of(year, 3, 1, 0, 0));
+            times.add(LocalDateTime.of(year, 1, 1, 0, 0));
+            times.add(LocalDateTime.of(year, 12, 31, 23, 59, 59, 999000000));
+        }
+        // 1582年10月5日到14日在GregorianCalendar中不存在，此前按儒略历计算
+        times.add(LocalDateTime.of(1582, 10, 10, 12, 0));
+        times.add(LocalDateTime.of(1582, 10, 15, 0, 0));
+        times.add(LocalDateTime.of(1582, 12, 31, 23, 59, 59));
+        // 时差表的范围1850年到2150年前后
+        times.add(LocalDateTime.of(1849, 12, 31, 23, 59, 59));
+        times.add(LocalDateTime.of(1850, 1, 1, 0, 0));
+        times.add(LocalDateTime.of(2149, 12, 31, 23, 59, 59));
+        times.add(LocalDateTime.of(2150, 1, 1, 0, 0));
+        // 上海1901年以前java.time按地方平时计算，TimeZone按+8:00计算
+        times.add(LocalDateTime.of(1900, 12, 31, 23, 59, 59));
+        times.add(LocalDateTime.of(1901, 1, 1, 0, 0));
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            long second = -5000000000L + (long) (random.nextDouble() * 10000000000L);
+            times.add(LocalDateTime.ofEpochSecond(second, random.nextInt(1000) * 1000000, ZoneOffset.UTC));
+        }
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            assertSameAsSimpleDateFormat(times);
+        }
+        for (String text : new String[]{"2016-02-29", "2000-02-29", "1900-02-29", "2017-02-29", "2017-02-30"}) {
+            assertSameAsSimpleDateFormat("yyyy-MM-dd", text);
+        }
+    }
+
+    @Test
+    public void matchesSimpleDateFormatForMalformedText() {
+        String[] texts = {"", " ", "abc", "2017", "2017-1-5", "2017-01-5", "2017-13-01", "2017-00-10", "2017-01-32",
+                " 2017-01-01", "2017-01-01 ", "2017-01-01x", "2017-01-01T00:00:00", "2017/01/01", "2017E01-01",
+                "2017-01-01 24:00:00", "2017-01-01 23:60:00", "2017-01-01 23:59:60", "2017-01-01 1:2:3",
+                "20170101", "201701011", "2017010", "2017-01-01 12:00", "2017-01-01 12:00:00.5", "-2017-01-01",
+                "+2017-01-01", "99999-01-01", "10000-01-01", "0000-01-01", "17011213450700", "1701121345070001",
+                "170112134507000", "01.02.2017", "1.2.2017", "01.02.17", "２０１７-01-01", "2017-01-01 12:00:00abc"};
+        for (String zone : ZONES) {
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for (String pattern : PATTERNS) {
+                for (String text : texts) {
+                    assertSameAsSimpleDateFormat(pattern, text);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parsesCharSequenceAndNull() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+        StringBuilder text = new StringBuilder("2017-01-02 13:45:07");
+        assertEquals(DateUtils.parseDate(text.toString(), "yyyy-MM-dd HH:mm:ss").getTime(),
+                DateUtils.parseEpochMillis(text, "yyyy-MM-dd HH:mm:ss"));
+        assertEquals(DateUtils.INVALID_MILLIS, DateUtils.parseEpochMillis(null, "yyyy-MM-dd"));
+        assertNull(DateUtils.parseDate("2017-xx-02", "yyyy-MM-dd"));
+        assertFalse(DateUtils.tryParseDate("2017-xx-02", "yyyy-MM-dd").isPresent());
+    }
+
+    private static void assertSameAsSimpleDateFormat(List<LocalDateTime> times) {
+        for (String pattern : PATTERNS) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern.replace("yyyy", "uuuu"));
+            for (LocalDateTime time : times) {
+                assertSameAsSimpleDateFormat(pattern, formatter.format(time));
+            }
+        }
+    }
+
+    private static void assertSameAsSimpleDateFormat(String pattern, String text) {
+        Date expected = new SimpleDateFormat(pattern).parse(text, new ParsePosition(0));
+        long actual = DateUtils.parseEpochMillis(text, pattern);
+        String message = TimeZone.getDefault().getID() + " " + pattern + " \"" + text + "\"";
+        assertEquals(message, expected == null ? DateUtils.INVALID_MILLIS : expected.getTime(), actual);
+    }
+}
@@ -0,0 +1,148 @@
+package com.values.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class EpochDaysTest {
+
+    private static final String[] ZONES = {"Asia/Shanghai", "America/New_York", "America/Sao_Paulo",
+            "Europe/London", "Australia/Lord_Howe", "Pacific/Apia", "Asia/Kolkata", "UTC"};
+
+    /**
+     * 时差表的范围：1850-01-01T00:00:00Z到2150-01-01T00:00:00Z
+     */
+    private static final long TABLE_START = -3786825600000L;
+    private static final long TABLE_END = 5680281600000L;
+
+    private final TimeZone defaultZone = TimeZone.getDefault();
+
+    @After
+    public void restoreDefaultZone() throws Exception {
+        useDefaultZone(defaultZone);
+    }
+
+    @Test
+    public void offsetsMatchZoneRules() {
+        for (String id : ZONES) {
+            ZoneRules rules = ZoneId.of(id).getRules();
+            EpochDays.Zone zone = new EpochDays.Zone(TimeZone.getTimeZone(id));
+            for (long millis : instants(id)) {
+                assertEquals(id + " " + millis, rules.getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000,
+                        zone.offset(millis));
+            }
+        }
+    }
+
+    @Test
+    public void epochDaysMatchJavaTime() throws Exception {
+        for (String id : ZONES) {
+            useDefaultZone(TimeZone.getTimeZone(id));
+            ZoneId zoneId = ZoneId.of(id);
+            for (long millis : instants(id)) {
+                LocalDate date = Instant.ofEpochMilli(millis).atZone(zoneId).toLocalDate();
+                String message = id + " " + millis;
+                assertEquals(message, date.toEpochDay(), DateUtils.toEpochDay(millis));
+                assertEquals(message, date.getYear(), DateUtils.getYear(new Date(millis)));
+                assertEquals(message, date.getMonthValue(), DateUtils.getMonth(new Date(millis)));
+            }
+        }
+    }
+
+    @Test
+    public void yearMonthDayMatchesLocalDate() {
+        // 公元前后、1900年和2100年（非闰年）、2000年（闰年）的2月29日都在范围内
+        for (long epochDay = LocalDate.of(-2000, 1, 1).toEpochDay();
+             epochDay <= LocalDate.of(4000, 12, 31).toEpochDay(); epochDay++) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            assertEquals(date.toString(), date.getYear(), DateUtils.yearOfEpochDay(epochDay));
+            assertEquals(date.toString(), date.getMonthValue(), DateUtils.monthOfEpochDay(epochDay));
+            assertEquals(date.toString(), date.getDayOfMonth(), DateUtils.dayOfMonthOfEpochDay(epochDay));
+        }
+    }
+
+    @Test
+    public void daysBetweenMatchesFormatAndParse() throws Exception {
+        for (String id : ZONES) {
+            useDefaultZone(TimeZone.getTimeZone(id));
+            List<Long> instants = instants(id);
+            Random random = new Random(3);
+            for (int i = 0; i < instants.size(); i++) {
+                long start = instants.get(i);
+                // 同一天、相邻的切换和随机的另一个时间
+                for (long end : new long[]{start + 3600000L, start + EpochDays.MILLIS_PER_DAY,
+                        instants.get(Math.min(i + 1, instants.size() - 1)),
+                        instants.get(random.nextInt(instants.size()))}) {
+                    assertEquals(id + " " + start + " " + end, formatAndParseDaysBetween(start, end),
+                            DateUtils.daysBetween(start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * daysBetween原来的实现：两个日期按yyyy-MM-dd格式化再解析，毫秒数相减后按整天截断
+     */
+    private static int formatAndParseDaysBetween(long start, long end) throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        long time1 = format.parse(format.format(new Date(start))).getTime();
+        long time2 = format.parse(format.format(new Date(end))).getTime();
+        return (int) ((time2 - time1) / (1000 * 3600 * 24));
+    }
+
+    /**
+     * @return 1900年到2100年每次切换的前后、1970年以前、时差表边界、闰日和随机的时刻
+     */
+    private static List<Long> instants(String id) {
+        List<Long> instants = new ArrayList<>();
+        ZoneRules rules = ZoneId.of(id).getRules();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.parse("1800-01-01T00:00:00Z"));
+        while (transition != null && transition.getInstant().isBefore(Instant.parse("2200-01-01T00:00:00Z"))) {
+            long millis = transition.getInstant().toEpochMilli();
+            instants.add(millis - 1);
+            instants.add(millis);
+            instants.add(millis + 1);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        for (long edge : new long[]{TABLE_START, TABLE_END, 0}) {
+            for (long delta : new long[]{-EpochDays.MILLIS_PER_DAY, -1, 0, 1, EpochDays.MILLIS_PER_DAY}) {
+                instants.add(edge + delta);
+            }
+        }
+        for (int year : new int[]{1600, 1700, 1900, 1960, 1968, 2000, 2016, 2100, 2400}) {
+            LocalDateTime leapDay = LocalDate.of(year, 2, 28).plusDays(1).atStartOfDay();
+            instants.add(leapDay.atZone(ZoneId.of(id)).toInstant().toEpochMilli());
+            instants.add(leapDay.minusNanos(1000000).atZone(ZoneId.of(id)).toInstant().toEpochMilli());
+        }
+        Random random = new Random(id.hashCode());
+        for (int i = 0; i < 2000; i++) {
+            instants.add(-12000000000000L + (long) (random.nextDouble() * 24000000000000L));
+        }
+        return instants;
+    }
+
+    /**
+     * EpochDays每秒最多检查一次默认时区，修改后清掉缓存立即生效
+     */
+    private static void useDefaultZone(TimeZone timeZone) throws Exception {
+        TimeZone.setDefault(timeZone);
+        Field zone = EpochDays.class.getDeclaredField("zone");
+        zone.setAccessible(true);
+        zone.set(null, null);
+    }
+}
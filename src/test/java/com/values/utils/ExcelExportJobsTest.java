@@ -0,0 +1,76 @@
+package com.values.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExcelExportJobsTest {
+
+    private File spoolDir;
+    private ExcelExportJobs jobs;
+
+    @Before
+    public void createSpoolDir() throws Exception {
+        spoolDir = Files.createTempDirectory("export-test").toFile();
+    }
+
+    @After
+    public void deleteSpoolDir() {
+        if (jobs != null) {
+            jobs.shutdown();
+        }
+        File[] files = spoolDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        spoolDir.delete();
+    }
+
+    @Test
+    public void removesExpiredJobsWithoutNewSubmissions() throws Exception {
+        jobs = new ExcelExportJobs(1, 1, spoolDir, 200);
+        ExcelExportJob job = jobs.submit("a.xlsx", (out, current) -> out.write(1));
+        waitUntilFinished(job);
+        assertEquals(ExcelExportJob.Status.DONE, job.getStatus());
+        File file = job.getFile();
+        assertTrue(file.exists());
+
+        // 不再提交任务，由后台线程在保留时间过后清理
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jobs.getJob(job.getId()) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertNull(jobs.getJob(job.getId()));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void shutdownDeletesFinishedFiles() throws Exception {
+        jobs = new ExcelExportJobs(1, 1, spoolDir, 60000);
+        ExcelExportJob job = jobs.submit("a.xlsx", (out, current) -> out.write(1));
+        waitUntilFinished(job);
+        File file = job.getFile();
+        assertTrue(file.exists());
+
+        jobs.shutdown();
+        assertNull(jobs.getJob(job.getId()));
+        assertFalse(file.exists());
+    }
+
+    private static void waitUntilFinished(ExcelExportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
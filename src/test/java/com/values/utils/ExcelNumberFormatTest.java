@@ -0,0 +1,47 @@
+package com.values.utils;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExcelNumberFormatTest {
+
+    private static final double[] EDGES = {0, -0.0, 0.5, -0.5, 1.5, 2.5, -2.5, 0.49999999999999994, -1e-300,
+            Double.MIN_VALUE, 13800138000.0, 110101199001011234.0, 9007199254740991.0, 9007199254740992.0,
+            9007199254740993.0, -9007199254740992.0, 1e16 + 0.5, 1e20, -1e22, Double.MAX_VALUE, Long.MAX_VALUE,
+            Long.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    @Test
+    public void formatNumberMatchesDecimalFormat() {
+        DecimalFormat expected = new DecimalFormat("0");
+        for (double value : EDGES) {
+            assertEquals(String.valueOf(value), expected.format(value), ExcelUtils.formatNumber(value));
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(24) - 4);
+            assertEquals(String.valueOf(value), expected.format(value), ExcelUtils.formatNumber(value));
+            // x.5正好落在两个整数中间
+            double half = Math.floor(value) + 0.5;
+            assertEquals(String.valueOf(half), expected.format(half), ExcelUtils.formatNumber(half));
+        }
+    }
+
+    @Test
+    public void formatPlainNumberMatchesJxlGeneralFormat() {
+        DecimalFormat expected = new DecimalFormat("#.###");
+        for (double value : EDGES) {
+            assertEquals(String.valueOf(value), expected.format(value), ExcelUtils.formatPlainNumber(value));
+        }
+        Random random = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(24) - 6);
+            assertEquals(String.valueOf(value), expected.format(value), ExcelUtils.formatPlainNumber(value));
+            double whole = Math.rint(value);
+            assertEquals(String.valueOf(whole), expected.format(whole), ExcelUtils.formatPlainNumber(whole));
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.values.utils;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExcelUtilsImportTest {
+
+    private static final String SHEET = "导入";
+
+    @Test
+    public void batchImportReadsXlsDateCells() throws Exception {
+        assertDateCells(ExcelUtils.Postfix.XLS, new HSSFWorkbook());
+    }
+
+    @Test
+    public void batchImportReadsXlsxDateCells() throws Exception {
+        assertDateCells(ExcelUtils.Postfix.XLSX, new XSSFWorkbook());
+    }
+
+    @Test
+    public void batchImportMatchesJxlForXlsDateCells() throws Exception {
+        byte[] xls = workbook(new HSSFWorkbook());
+        Map<String, Object> result = ExcelUtils.excelToList(new ByteArrayInputStream(xls), SHEET, Item.class,
+                fieldMap(), null);
+        @SuppressWarnings("unchecked")
+        List<Item> expected = (List<Item>) result.get("val");
+        List<Item> actual = batchImport(ExcelUtils.Postfix.XLS, xls);
+
+        assertEquals(1, expected.size());
+        assertEquals(expected.get(0).getDayText(), actual.get(0).getDayText());
+        assertEquals(expected.get(0).getDay(), actual.get(0).getDay());
+        assertEquals(expected.get(0).getAmount(), actual.get(0).getAmount());
+    }
+
+    @Test
+    public void batchImportMatchesJxlForGeneralNumbers() throws Exception {
+        List<Double> values = new ArrayList<>();
+        for (double value : new double[]{0, -0.0, 1, -1, 0.5, -2.5, 0.0005, 0.0015, 1e-7, 3.14159, 1234.5678,
+                123456789012345.0, 1e15, 9007199254740993.0, 1e16, 12345678901234567890.0, 13800138000.0,
+                -0.0004}) {
+            values.add(value);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            values.add((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 4));
+        }
+
+        Workbook wb = new HSSFWorkbook();
+        Sheet sheet = wb.createSheet(SHEET);
+        sheet.createRow(0).createCell(0).setCellValue("数量");
+        for (int i = 0; i < values.size(); i++) {
+            sheet.createRow(i + 1).createCell(0).setCellValue(values.get(i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        wb.write(out);
+        byte[] xls = out.toByteArray();
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        fieldMap.put("数量", "amount");
+
+        Map<String, Object> result = ExcelUtils.excelToList(new ByteArrayInputStream(xls), SHEET, Item.class,
+                fieldMap, null);
+        @SuppressWarnings("unchecked")
+        List<Item> expected = (List<Item>) result.get("val");
+        List<Item> actual = new ArrayList<>();
+        ExcelUtils.excelToList(new ByteArrayInputStream(xls), ExcelUtils.Postfix.XLS, SHEET, Item.class, fieldMap,
+                null, 50, actual::addAll);
+
+        assertEquals(values.size(), expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(String.valueOf(values.get(i)), expected.get(i).getAmount(), actual.get(i).getAmount());
+        }
+    }
+
+    @Test
+    public void bothImportPathsIgnoreSurroundingSpacesInUniqueFields() throws Exception {
+        Workbook wb = new HSSFWorkbook();
+        Sheet sheet = wb.createSheet(SHEET);
+        String[] codes = {"编号", "A01", " A01 ", "A02"};
+        for (int i = 0; i < codes.length; i++) {
+            sheet.createRow(i).createCell(0).setCellValue(codes[i]);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        wb.write(out);
+        byte[] xls = out.toByteArray();
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        fieldMap.put("编号", "dayText");
+        String[] uniqueFields = {"编号"};
+
+        String jxlMessage = null;
+        try {
+            ExcelUtils.excelToList(new ByteArrayInputStream(xls), SHEET, Item.class, fieldMap, uniqueFields);
+        } catch (Exception e) {
+            jxlMessage = e.getMessage();
+        }
+        String batchMessage = null;
+        try {
+            ExcelUtils.excelToList(new ByteArrayInputStream(xls), ExcelUtils.Postfix.XLS, SHEET, Item.class,
+                    fieldMap, uniqueFields, 10, items -> {
+                    });
+        } catch (Exception e) {
+            batchMessage = e.getMessage();
+        }
+
+        assertEquals("Excel中有重复行，请检查：第2、3行重复", jxlMessage);
+        assertEquals(jxlMessage, batchMessage);
+    }
+
+    @Test
+    public void recordsMissingSheetImportUnderCallerJobName() throws Exception {
+        byte[] xls = workbook(new HSSFWorkbook());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            Map<String, Object> result = ExcelUtils.excelToList(new ByteArrayInputStream(xls), "不存在", Item.class,
+                    fieldMap(), null, null, new ExcelImportOptions().setJobName("loan-import"));
+            assertTrue(result.isEmpty());
+
+            Timer timer = registry.find("excel.duration").tags("operation", "import", "job", "loan-import",
+                    "outcome", "success").timer();
+            assertEquals(1, timer.count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    private static void assertDateCells(ExcelUtils.Postfix postfix, Workbook wb) throws Exception {
+        List<Item> items = batchImport(postfix, workbook(wb));
+
+        assertEquals(1, items.size());
+        Item item = items.get(0);
+        assertEquals("2017-01-02", item.getDayText());
+        assertEquals(DateUtils.parseDate("2017-01-02", "yyyy-MM-dd"), item.getDay());
+        assertEquals(LocalDate.of(2017, 1, 2), item.getLocalDay());
+        assertEquals(LocalDateTime.of(2017, 1, 2, 13, 45, 7), item.getTime());
+        // 常规格式的数字不是日期
+        assertEquals("42737", item.getAmount());
+    }
+
+    private static List<Item> batchImport(ExcelUtils.Postfix postfix, byte[] content) throws Exception {
+        List<Item> items = new ArrayList<>();
+        ExcelUtils.excelToList(new ByteArrayInputStream(content), postfix, SHEET, Item.class, fieldMap(), null,
+                10, items::addAll);
+        return items;
+    }
+
+    private static LinkedHashMap<String, String> fieldMap() {
+        LinkedHashMap<String, String> fieldMap = new LinkedHashMap<>();
+        fieldMap.put("日期文本", "dayText");
+        fieldMap.put("日期", "day");
+        fieldMap.put("本地日期", "localDay");
+        fieldMap.put("时间", "time");
+        fieldMap.put("数量", "amount");
+        return fieldMap;
+    }
+
+    private static byte[] workbook(Workbook wb) throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2017, Calendar.JANUARY, 2, 13, 45, 7);
+        Date time = calendar.getTime();
+
+        CellStyle date = wb.createCellStyle();
+        date.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd"));
+        CellStyle dateTime = wb.createCellStyle();
+        dateTime.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd HH:mm:ss"));
+
+        Sheet sheet = wb.createSheet(SHEET);
+        Row header = sheet.createRow(0);
+        String[] names = {"日期文本", "日期", "本地日期", "时间", "数量"};
+        for (int i = 0; i < names.length; i++) {
+            header.createCell(i).setCellValue(names[i]);
+        }
+        Row row = sheet.createRow(1);
+        for (int i = 0; i < 3; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(time);
+            cell.setCellStyle(date);
+        }
+        Cell cell = row.createCell(3);
+        cell.setCellValue(time);
+        cell.setCellStyle(dateTime);
+        row.createCell(4).setCellValue(42737);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        wb.write(out);
+        return out.toByteArray();
+    }
+
+    public static class Item {
+        private String dayText;
+        private Date day;
+        private LocalDate localDay;
+        private LocalDateTime time;
+        private String amount;
+
+        public String getDayText() {
+            return dayText;
+        }
+
+        public void setDayText(String dayText) {
+            this.dayText = dayText;
+        }
+
+        public Date getDay() {
+            return day;
+        }
+
+        public void setDay(Date day) {
+            this.day = day;
+        }
+
+        public LocalDate getLocalDay() {
+            return localDay;
+        }
+
+        public void setLocalDay(LocalDate localDay) {
+            this.localDay = localDay;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public void setTime(LocalDateTime time) {
+            this.time = time;
+        }
+
+        public String getAmount() {
+            return amount;
+        }
+
+        public void setAmount(String amount) {
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.values.utils;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class FieldAccessorsTest {
+
+    @Test
+    public void resolvesPathThroughDeclaredTypes() throws Exception {
+        Holder holder = new Holder();
+        holder.college = new College("软件学院");
+
+        assertEquals("软件学院", ExcelUtils.getFieldValueByNameSequence("college.collegeName", holder));
+    }
+
+    @Test
+    public void resolvesPathThroughObjectTypedField() throws Exception {
+        Holder holder = new Holder();
+        holder.any = new College("数学学院");
+
+        assertEquals("数学学院", ExcelUtils.getFieldValueByNameSequence("any.collegeName", holder));
+        // 同一路径下实际类不同时分别查找
+        holder.any = new Teacher("张三", null);
+        assertEquals("张三", ExcelUtils.getFieldValueByNameSequence("any.name", holder));
+    }
+
+    @Test
+    public void resolvesPathThroughInterfaceAndAbstractFields() throws Exception {
+        Holder holder = new Holder();
+        holder.named = new Teacher("李四", null);
+        holder.person = new Teacher("王五", new College("物理学院"));
+
+        assertEquals("李四", ExcelUtils.getFieldValueByNameSequence("named.name", holder));
+        assertEquals("物理学院", ExcelUtils.getFieldValueByNameSequence("person.college.collegeName", holder));
+    }
+
+    @Test
+    public void formatsDateLeafFoundThroughRuntimeClass() throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2017, Calendar.JANUARY, 2, 13, 45, 7);
+        Holder holder = new Holder();
+        holder.any = new Teacher("赵六", null, calendar.getTime());
+
+        assertEquals("2017-01-02 13:45:07", ExcelUtils.getFieldValueByNameSequence("any.hired", holder));
+    }
+
+    @Test
+    public void returnsNullWhenRuntimeResolvedParentIsNull() throws Exception {
+        assertNull(ExcelUtils.getFieldValueByNameSequence("any.collegeName", new Holder()));
+    }
+
+    @Test
+    public void reportsFieldMissingFromRuntimeClass() throws Exception {
+        Holder holder = new Holder();
+        holder.any = new College("化学学院");
+        try {
+            ExcelUtils.getFieldValueByNameSequence("any.name", holder);
+            fail();
+        } catch (Exception e) {
+            assertEquals("College类不存在字段名 name", e.getMessage());
+        }
+    }
+
+    interface Named {
+    }
+
+    abstract static class Person implements Named {
+        String name;
+    }
+
+    static class Teacher extends Person {
+        College college;
+        Date hired;
+
+        Teacher(String name, College college) {
+            this(name, college, null);
+        }
+
+        Teacher(String name, College college, Date hired) {
+            this.name = name;
+            this.college = college;
+            this.hired = hired;
+        }
+    }
+
+    static class College {
+        String collegeName;
+
+        College(String collegeName) {
+            this.collegeName = collegeName;
+        }
+    }
+
+    static class Holder {
+        College college;
+        Object any;
+        Named named;
+        Person person;
+    }
+}
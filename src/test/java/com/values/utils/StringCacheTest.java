@@ -0,0 +1,33 @@
+package com.values.utils;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StringCacheTest {
+
+    @Test
+    public void roundsSizeUpToPowerOfTwoWithinLimits() throws Exception {
+        int[][] cases = {{Integer.MIN_VALUE, 16}, {-1, 16}, {0, 16}, {1, 16}, {16, 16}, {17, 32}, {32, 32},
+                {33, 64}, {1000, 1024}, {1 << 20, 1 << 20}, {(1 << 20) + 1, 1 << 20}, {Integer.MAX_VALUE, 1 << 20}};
+        for (int[] c : cases) {
+            assertEquals("size " + c[0], c[1], capacity(new StringCache(c[0])));
+        }
+    }
+
+    @Test
+    public void returnsCachedInstanceForEqualText() {
+        StringCache cache = new StringCache(16);
+        String first = cache.intern(new String("北京"));
+        assertSame(first, cache.intern(new String("北京")));
+    }
+
+    private static int capacity(StringCache cache) throws Exception {
+        Field table = StringCache.class.getDeclaredField("table");
+        table.setAccessible(true);
+        return ((String[]) table.get(cache)).length;
+    }
+}